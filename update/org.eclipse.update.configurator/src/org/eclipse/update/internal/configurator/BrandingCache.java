@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.internal.configurator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Properties;
+
+import org.eclipse.update.configurator.IPlatformConfiguration;
+import org.eclipse.update.internal.configurator.branding.AboutInfo;
+import org.osgi.framework.Bundle;
+
+/**
+ * Branding of the features, kept in the configuration area so the about
+ * files and the feature manifests are not read again on each startup.
+ * <p>
+ * The branding of a feature is stored under keys starting with
+ * <code>&lt;id&gt;/&lt;version&gt;/</code>, '/' appears neither in feature ids and
+ * versions nor in the key names. It is stored with a stamp made of the locale, the branding bundle and its last
+ * modification time, and the modification time of the feature manifest.
+ * An entry whose stamp no longer matches is read again.
+ * </p>
+ */
+class BrandingCache implements IConfigurationConstants {
+
+	static final String BRANDING_CACHE = "branding.cache"; //$NON-NLS-1$
+	private static final String STAMP = "stamp"; //$NON-NLS-1$
+	private static final String DESCRIPTION = "description"; //$NON-NLS-1$
+
+	private File file;
+	private Properties entries;
+	private boolean dirty;
+
+	/**
+	 * @param file the cache file, <code>null</code> if the configuration area
+	 * is read-only, in which case the cache is not saved
+	 */
+	BrandingCache(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the branding of the feature
+	 */
+	synchronized AboutInfo getAboutInfo(FeatureEntry feature) {
+		String prefix = getPrefix(feature);
+		String stamp = getStamp(feature);
+		if (stamp == null)
+			return readAboutInfo(feature);
+
+		Properties props = getEntries();
+		if (stamp.equals(props.getProperty(prefix + STAMP))) {
+			AboutInfo info = AboutInfo.load(props, prefix, feature.getFeatureIdentifier());
+			if (info != null)
+				return info;
+		}
+		AboutInfo info = readAboutInfo(feature);
+		update(feature, prefix, stamp, info);
+		return info;
+	}
+
+	/**
+	 * Returns the description of the feature if it is known, <code>null</code> otherwise
+	 */
+	synchronized String getDescription(FeatureEntry feature) {
+		String prefix = getPrefix(feature);
+		String stamp = getStamp(feature);
+		if (stamp == null || !stamp.equals(getEntries().getProperty(prefix + STAMP)))
+			return null;
+		return getEntries().getProperty(prefix + DESCRIPTION);
+	}
+
+	/**
+	 * Reads the branding of the features that are not known yet and
+	 * drops the other entries
+	 */
+	synchronized void fill(IPlatformConfiguration.IFeatureEntry[] features) {
+		Properties props = getEntries();
+		Properties filled = new Properties();
+		for (int i = 0; i < features.length; i++) {
+			if (!(features[i] instanceof FeatureEntry))
+				continue;
+			FeatureEntry feature = (FeatureEntry) features[i];
+			String stamp = getStamp(feature);
+			if (stamp == null)
+				continue;
+			String prefix = getPrefix(feature);
+			if (stamp.equals(props.getProperty(prefix + STAMP))) {
+				// keep the known entry
+				for (Iterator keys = props.keySet().iterator(); keys.hasNext();) {
+					String key = (String) keys.next();
+					if (key.startsWith(prefix))
+						filled.setProperty(key, props.getProperty(key));
+				}
+			} else {
+				store(filled, feature, prefix, stamp, readAboutInfo(feature));
+			}
+		}
+		entries = filled;
+		dirty = true;
+	}
+
+	/**
+	 * Writes the cache if it changed
+	 */
+	synchronized void save() {
+		if (!dirty || file == null)
+			return;
+		OutputStream out = null;
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(file));
+			entries.store(out, null);
+			dirty = false;
+		} catch (IOException e) {
+			Utils.debug("Unable to save branding cache " + file + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			if (out != null)
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+		}
+	}
+
+	private Properties getEntries() {
+		if (entries != null)
+			return entries;
+		entries = new Properties();
+		if (file == null || !file.exists())
+			return entries;
+		InputStream in = null;
+		try {
+			in = new BufferedInputStream(new FileInputStream(file));
+			entries.load(in);
+		} catch (IOException e) {
+			// the cache is rebuilt
+			entries.clear();
+		} catch (IllegalArgumentException e) {
+			// malformed content, the cache is rebuilt
+			entries.clear();
+		} finally {
+			if (in != null)
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+		}
+		return entries;
+	}
+
+	private void update(FeatureEntry feature, String prefix, String stamp, AboutInfo info) {
+		Properties props = getEntries();
+		// drop the outdated entry
+		for (Iterator keys = props.keySet().iterator(); keys.hasNext();) {
+			if (((String) keys.next()).startsWith(prefix))
+				keys.remove();
+		}
+		store(props, feature, prefix, stamp, info);
+		dirty = true;
+	}
+
+	private static void store(Properties props, FeatureEntry feature, String prefix, String stamp, AboutInfo info) {
+		props.setProperty(prefix + STAMP, stamp);
+		info.store(props, prefix);
+		String description = feature.getDescription();
+		if (description != null)
+			props.setProperty(prefix + DESCRIPTION, description);
+	}
+
+	private static AboutInfo readAboutInfo(FeatureEntry feature) {
+		return AboutInfo.readFeatureInfo(feature.getFeatureIdentifier(), feature.getFeatureVersion(), feature.getFeaturePluginIdentifier());
+	}
+
+	/*
+	 * The prefix of a feature is not the start of the prefix of another feature,
+	 * as '/' cannot be part of an id or a version
+	 */
+	private static String getPrefix(FeatureEntry feature) {
+		return feature.getFeatureIdentifier() + '/' + feature.getFeatureVersion() + '/';
+	}
+
+	/*
+	 * Returns null when the branding bundle is not available, such
+	 * a branding is not cached
+	 */
+	private static String getStamp(FeatureEntry feature) {
+		Bundle bundle = Utils.getBundle(feature.getFeaturePluginIdentifier());
+		if (bundle == null)
+			return null;
+		StringBuffer stamp = new StringBuffer();
+		stamp.append(Utils.getDefaultLocale()).append(',');
+		stamp.append(bundle.getBundleId()).append(',');
+		stamp.append(bundle.getLastModified());
+		SiteEntry site = feature.getSite();
+		if (site != null && feature.getURL() != null) {
+			File featureXML = new File(site.getResolvedURL().getFile(), feature.getURL() + FEATURE_XML);
+			stamp.append(',').append(featureXML.lastModified());
+		}
+		return stamp.toString();
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.internal.configurator;
+
+import java.util.HashMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+import org.osgi.service.packageadmin.PackageAdmin;
+import org.osgi.util.tracker.ServiceTracker;
+
+/**
+ * Cache of the bundle used for each symbolic name.
+ * <p>
+ * The bundles are looked up with the package admin the first time they are
+ * asked for, and forgotten when a bundle with the same symbolic name is
+ * installed, resolved, unresolved, updated or uninstalled. The cache is
+ * copied on write so it is read without locking.
+ * </p>
+ */
+class BundleCache implements SynchronousBundleListener {
+
+	// marks the names that have no bundle
+	private static final Object NO_BUNDLE = new Object();
+
+	private final ServiceTracker packageAdminTracker;
+	private volatile HashMap bundles = new HashMap(); /* key=symbolic name value=Bundle or NO_BUNDLE */
+	private long generation;
+
+	/**
+	 * @param packageAdminTracker the tracker of the package admin used for the lookups
+	 */
+	BundleCache(ServiceTracker packageAdminTracker) {
+		this.packageAdminTracker = packageAdminTracker;
+	}
+
+	/**
+	 * Returns the first bundle with the given symbolic name that is
+	 * neither installed nor uninstalled, that is, the highest resolved version.
+	 * Returns <code>null</code> when the package admin is gone.
+	 */
+	Bundle getBundle(String symbolicName) {
+		Object cached = bundles.get(symbolicName);
+		if (cached != null)
+			return cached == NO_BUNDLE ? null : (Bundle) cached;
+
+		PackageAdmin admin = (PackageAdmin) packageAdminTracker.getService();
+		if (admin == null)
+			return null;
+
+		long lookupGeneration;
+		synchronized (this) {
+			lookupGeneration = generation;
+		}
+		Bundle bundle = lookup(symbolicName, admin);
+		synchronized (this) {
+			// a bundle changed during the lookup, the result may be stale
+			if (lookupGeneration == generation) {
+				HashMap copy = new HashMap(bundles);
+				copy.put(symbolicName, bundle == null ? NO_BUNDLE : bundle);
+				bundles = copy;
+			}
+		}
+		return bundle;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.osgi.framework.BundleListener#bundleChanged(org.osgi.framework.BundleEvent)
+	 */
+	public void bundleChanged(BundleEvent event) {
+		switch (event.getType()) {
+			case BundleEvent.INSTALLED :
+			case BundleEvent.RESOLVED :
+			case BundleEvent.UNRESOLVED :
+			case BundleEvent.UPDATED :
+			case BundleEvent.UNINSTALLED :
+				break;
+			default :
+				return;
+		}
+		String symbolicName = event.getBundle().getSymbolicName();
+		synchronized (this) {
+			generation++;
+			if (symbolicName == null || !bundles.containsKey(symbolicName))
+				return;
+			HashMap copy = new HashMap(bundles);
+			copy.remove(symbolicName);
+			bundles = copy;
+		}
+	}
+
+	private static Bundle lookup(String symbolicName, PackageAdmin admin) {
+		Bundle[] bundles = admin.getBundles(symbolicName, null);
+		if (bundles == null)
+			return null;
+		//Return the first bundle that is not installed or uninstalled
+		for (int i = 0; i < bundles.length; i++) {
+			if ((bundles[i].getState() & (Bundle.INSTALLED | Bundle.UNINSTALLED)) == 0) {
+				return bundles[i];
+			}
+		}
+		return null;
+	}
+}
@@ -11,7 +11,6 @@
  *******************************************************************************/
 package org.eclipse.update.internal.configurator;
 import java.io.*;
-import java.util.jar.*;
 
 import org.eclipse.osgi.util.*;
 import org.osgi.framework.*;
@@ -19,6 +18,7 @@ import org.osgi.framework.*;
  * Parses MANIFEST.MF
  */
 public class BundleManifest implements IConfigurationConstants {
+	private static final String[] HEADERS = {Constants.BUNDLE_SYMBOLICNAME, Constants.BUNDLE_VERSION, Constants.FRAGMENT_HOST};
 	private File manifestFile;
 	private PluginEntry pluginEntry;
 	private IOException exception;
@@ -64,30 +64,27 @@ public class BundleManifest implements IConfigurationConstants {
 	 */
 	private void parse(InputStream in) {
 		try {
-			Manifest m = new Manifest(in);
-			Attributes a = m.getMainAttributes();
+			ManifestHeaderScanner headers = new ManifestHeaderScanner(in, HEADERS);
 			// plugin id
-			String symbolicName = a.getValue(Constants.BUNDLE_SYMBOLICNAME);
+			String symbolicName = headers.getValue(Constants.BUNDLE_SYMBOLICNAME);
 			if (symbolicName == null) {
 				// In Eclipse manifest must have Bundle-SymbolicName attribute
 				return;
 			}
 			String id;
 			try {
-				ManifestElement[] elements = ManifestElement.parseHeader(
-						Constants.BUNDLE_SYMBOLICNAME, symbolicName);
-				id = elements[0].getValue();
+				id = ManifestHeaderScanner.getSymbolicName(symbolicName);
 			} catch (BundleException be) {
 				throw new IOException(be.getMessage());
 			}
 			// plugin version
-			String version = a.getValue(Constants.BUNDLE_VERSION);
+			String version = headers.getValue(Constants.BUNDLE_VERSION);
 			if (version == null) {
 				Utils.log(NLS.bind(Messages.BundleManifest_noVersion, (new String[] { Constants.BUNDLE_VERSION, id })));
 				return;
 			}
 			version = version.trim();
-			String hostPlugin = a.getValue(Constants.FRAGMENT_HOST);
+			String hostPlugin = headers.getValue(Constants.FRAGMENT_HOST);
 			pluginEntry = new PluginEntry();
 			pluginEntry.setVersionedIdentifier(new VersionedIdentifier(id,
 					version));
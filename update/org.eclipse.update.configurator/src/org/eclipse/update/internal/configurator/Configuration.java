@@ -32,6 +32,7 @@ public class Configuration implements IConfigurationConstants {
 	private boolean isDirty;
 	private Configuration linkedConfig; // shared configuration
 	private URL associatedInstallURL = Utils.getInstallURL();
+	private volatile long modificationStamp; // bumped on any change of the sites or of their content
 	
 	public Configuration() {
 		this(new Date());
@@ -51,6 +52,7 @@ public class Configuration implements IConfigurationConstants {
 	}
 	
 	public void setLinkedConfig(Configuration linkedConfig) {
+		changed();
 		this.linkedConfig = linkedConfig;
 		// make all the sites read-only
 		SiteEntry[] linkedSites = linkedConfig.getSites();
@@ -79,6 +81,7 @@ public class Configuration implements IConfigurationConstants {
 		if (sites.get(url) == null && (linkedConfig == null || linkedConfig.sites.get(url) == null)) {
 			site.setConfig(this);
 			sites.put(url, site);
+			changed();
 			if(url.startsWith("platform:")){//$NON-NLS-1$
 				URL pURL;
 				try {
@@ -105,6 +108,7 @@ public class Configuration implements IConfigurationConstants {
 	public void removeSiteEntry(String url) {
 		url =Utils.canonicalizeURL(url);		
 		sites.remove(url);
+		changed();
 		if(url.startsWith("platform:")){ //$NON-NLS-1$
 			URL pURL;
 			try {
@@ -181,6 +185,23 @@ public class Configuration implements IConfigurationConstants {
 		this.transientConfig = isTransient;
 	}
 	
+	/**
+	 * Records a change of the sites or of their features and plugins
+	 */
+	synchronized void changed() {
+		modificationStamp++;
+	}
+
+	/**
+	 * Returns a stamp that changes whenever the sites of this configuration,
+	 * or of its linked configuration, or their content change
+	 */
+	public long getModificationStamp() {
+		if (linkedConfig == null)
+			return modificationStamp;
+		return modificationStamp + linkedConfig.getModificationStamp();
+	}
+
 	public Date getDate() {
 		return date;
 	}
@@ -37,8 +37,10 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 
 	// debug options
 	public static String OPTION_DEBUG = PI_CONFIGURATOR + "/debug"; //$NON-NLS-1$
+	public static String OPTION_DEBUG_PROFILE = PI_CONFIGURATOR + "/debug/profile"; //$NON-NLS-1$
 	// debug values
 	public static boolean DEBUG = false;
+	public static boolean DEBUG_PROFILE = false;
 
 	private static BundleContext context;
 	private ServiceRegistration configurationFactorySR;
@@ -53,6 +55,8 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 
 	// The expected states timestamp
 	private long lastStateTimeStamp;
+	private BrandingCache brandingCache;
+	private PluginDiscovery pluginDiscovery;
 
 	// Singleton
 	private static ConfigurationActivator configurator;
@@ -64,6 +68,7 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 	public void start(BundleContext ctx) throws Exception {
 		context = ctx;
 		loadOptions();
+		long start = StartupProfile.start();
 		acquireFrameworkLogService();
 		try {
 			initialize();
@@ -77,6 +82,9 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 		if (canRunWithCachedData()) {
 			Utils.debug("Running with cached data"); //$NON-NLS-1$
 			registerBundleGroupProvider();
+			startPluginDiscovery();
+			StartupProfile.record("startup", "cached", start, -1, -1); //$NON-NLS-1$ //$NON-NLS-2$
+			writeStartupProfile();
 			return;
 		}
 
@@ -85,6 +93,31 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 		if (isReconciling())
 			installBundles();
 		registerBundleGroupProvider();
+		startPluginDiscovery();
+		StartupProfile.record("startup", null, start, -1, -1); //$NON-NLS-1$
+		writeStartupProfile();
+	}
+
+	private void writeStartupProfile() {
+		if (!DEBUG_PROFILE)
+			return;
+		File nameSpace = configLocation == null || configLocation.isReadOnly() ? null : new File(configLocation.getURL().getFile(), NAME_SPACE);
+		if (nameSpace != null && nameSpace.isDirectory())
+			StartupProfile.write(new File(nameSpace, StartupProfile.PROFILE_FILE));
+		else
+			StartupProfile.stop();
+	}
+
+	/*
+	 * Starts watching the sites for new plugins, if enabled
+	 */
+	private void startPluginDiscovery() {
+		long interval = PluginDiscovery.getInterval(context.getProperty(PluginDiscovery.DISCOVERY_INTERVAL));
+		if (interval == 0 || !isReconciling() || configuration == null)
+			return;
+		Utils.debug("Discovering plug-ins every " + interval + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		pluginDiscovery = new PluginDiscovery(this, configuration, interval);
+		pluginDiscovery.start();
 	}
 	
 	/**
@@ -132,6 +165,10 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 				// ignore
 			}
 		}
+		File brandingCacheFile = null;
+		if (!configLocation.isReadOnly())
+			brandingCacheFile = new File(configLocation.getURL().getFile(), NAME_SPACE + File.separator + BrandingCache.BRANDING_CACHE);
+		brandingCache = new BrandingCache(brandingCacheFile);
 		configurationFactorySR = context.registerService(IPlatformConfigurationFactory.class.getName(), new PlatformConfigurationFactory(), null);
 		configuration = getPlatformConfiguration(Utils.getInstallURL(), configLocation);
 		if (configuration == null)
@@ -156,6 +193,8 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 	}
 
 	public void stop(BundleContext ctx) throws Exception {
+		if (pluginDiscovery != null)
+			pluginDiscovery.shutdown();
 		// quick fix (hack) for bug 47861
 		try {
 			PlatformConfiguration.shutdown();
@@ -166,11 +205,14 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 		configurationFactorySR.unregister();
 		if (bundleGroupProviderSR != null)
 			bundleGroupProviderSR.unregister();
+		if (brandingCache != null)
+			brandingCache.save();
 		Utils.shutdown();
 	}
 
-	public boolean installBundles() {
+	public synchronized boolean installBundles() {
 		Utils.debug("Installing bundles..."); //$NON-NLS-1$
+		long installStart = StartupProfile.start();
 		ServiceReference reference = context.getServiceReference(StartLevel.class.getName());
 		int startLevel = 4;
 		String defaultStartLevel = context.getProperty("osgi.bundles.defaultStartLevel"); //$NON-NLS-1$
@@ -196,7 +238,9 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 			// starts the list of bundles to refresh with all currently unresolved bundles (see bug 50680)
 			List toRefresh = getUnresolvedBundles();
 
+			long phaseStart = StartupProfile.start();
 			Bundle[] bundlesToUninstall = getBundlesToUninstall(cachedBundles, plugins);
+			StartupProfile.record("getBundlesToUninstall", null, phaseStart, bundlesToUninstall.length, -1); //$NON-NLS-1$
 			for (int i = 0; i < bundlesToUninstall.length; i++) {
 				try {
 					if (DEBUG)
@@ -210,7 +254,9 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 			}
 
 			// Get the urls to install
+			phaseStart = StartupProfile.start();
 			String[] bundlesToInstall = getBundlesToInstall(cachedBundles, plugins);
+			StartupProfile.record("getBundlesToInstall", null, phaseStart, bundlesToInstall.length, -1); //$NON-NLS-1$
 			ArrayList lazyActivationBundles = new ArrayList(bundlesToInstall.length);
 			for (int i = 0; i < bundlesToInstall.length; i++) {
 				try {
@@ -233,7 +279,9 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 			}
 			context.ungetService(reference);
 			removeInitialBundles(toRefresh, cachedBundles);
+			phaseStart = StartupProfile.start();
 			refreshPackages((Bundle[]) toRefresh.toArray(new Bundle[toRefresh.size()]));
+			StartupProfile.record("refreshPackages", null, phaseStart, toRefresh.size(), -1); //$NON-NLS-1$
 			// after resolving all the bundles; activate the bundles that have a lazy activation policy
 			for (Iterator activateBundles = lazyActivationBundles.iterator(); activateBundles.hasNext();) {
 				Bundle toActivate = (Bundle) activateBundles.next();
@@ -248,6 +296,10 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 			}
 			// keep track of the last config successfully processed
 			writePlatformConfigurationTimeStamp();
+			// the bundles are resolved, record the branding of the new configuration
+			brandingCache.fill(configuration.getConfiguredFeatureEntries());
+			brandingCache.save();
+			StartupProfile.record("installBundles", null, installStart, bundlesToInstall.length, -1); //$NON-NLS-1$
 			return true;
 		} catch (Exception e) {
 			return false;
@@ -489,6 +541,7 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 			return;
 		try {
 			DEBUG = service.getBooleanOption(OPTION_DEBUG, false);
+			DEBUG_PROFILE = service.getBooleanOption(OPTION_DEBUG_PROFILE, false);
 		} finally {
 			// we have what we want - release the service
 			context.ungetService(reference);
@@ -527,6 +580,10 @@ public class ConfigurationActivator implements BundleActivator, IBundleGroupProv
 		return (IBundleGroup[]) bundleGroups.toArray(new IBundleGroup[bundleGroups.size()]);
 	}
 
+	BrandingCache getBrandingCache() {
+		return brandingCache;
+	}
+
 	public static ConfigurationActivator getConfigurator() {
 		return configurator;
 	}
@@ -9,8 +9,8 @@
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 package org.eclipse.update.internal.configurator;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
@@ -18,6 +18,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.StringTokenizer;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -40,15 +42,33 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 	
 	private static final String URL_PROPERTY = "org.eclipse.update.resolution_url"; //$NON-NLS-1$
 	private static final String EMPTY_STRING = ""; //$NON-NLS-1$
+	private static final int UNKNOWN_ELEMENT = 0;
+	private static final int CONFIG_ELEMENT = 1;
+	private static final int SITE_ELEMENT = 2;
+	private static final int FEATURE_ELEMENT = 3;
+	private static final HashMap ELEMENTS = new HashMap(); /* key=tag value=Integer element type */
+	static {
+		ELEMENTS.put(CFG, new Integer(CONFIG_ELEMENT));
+		ELEMENTS.put(CFG_SITE, new Integer(SITE_ELEMENT));
+		ELEMENTS.put(CFG_FEATURE_ENTRY, new Integer(FEATURE_ELEMENT));
+	}
 	private final static SAXParserFactory parserFactory =
 		SAXParserFactory.newInstance();
 	private SAXParser parser;
 	
 	private URL currentSiteURL;
+	private SiteEntry currentSite;
+	// resolved once per configuration
+	private URL resolutionRoot;
+	private URL configLocation;
+	// values repeated across the entries, such as versions and plug-in ids, are shared
+	private HashMap strings = new HashMap(); /* key=value value=value */
+	private HashMap urls = new HashMap(); /* key=url string value=URL */
 	private Configuration config;
 	private URL configURL;
 	private InputStream input;
 	private URL installLocation;
+	private ConfigurationSnapshot snapshot;
 	
 	/**
 	 * Constructor for ConfigurationParser
@@ -80,7 +100,20 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 				if (!inputFile.exists() || !inputFile.canRead())
 					return null;
 				lastModified = inputFile.lastModified();
-				input = new FileInputStream(inputFile);
+				byte[] content = ConfigurationSnapshot.read(inputFile);
+				File snapshotFile = ConfigurationSnapshot.getSnapshotFile(inputFile);
+				if (ConfigurationSnapshot.replay(snapshotFile, content, this)) {
+					Utils.debug("Loaded Configuration from snapshot:" + snapshotFile); //$NON-NLS-1$
+					return config;
+				}
+				// only the current configuration gets a snapshot, not the temporary or backup files
+				if (PlatformConfiguration.PLATFORM_XML.equals(inputFile.getName()))
+					snapshot = new ConfigurationSnapshot();
+				input = new ByteArrayInputStream(content);
+				parser.parse(new InputSource(input), this);
+				if (snapshot != null)
+					snapshot.write(snapshotFile, content);
+				return config;
 			} else 
 				input = url.openStream();
 			parser.parse(new InputSource(input), this);
@@ -89,6 +122,9 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 			Utils.log(Utils.newStatus("ConfigurationParser.parse() error:", e)); //$NON-NLS-1$
 			throw e;
 		} finally {
+			snapshot = null;
+			strings.clear();
+			urls.clear();
 			if (config != null)
 				config.setLastModified(lastModified);
 			try {
@@ -113,26 +149,22 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		throws SAXException {
 
 		// DEBUG:		
-		Utils.debug("Start Element: uri:" + uri + " local Name:" + localName + " qName:" + qName); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (ConfigurationActivator.DEBUG)
+			Utils.debug("Start Element: uri:" + uri + " local Name:" + localName + " qName:" + qName); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (snapshot != null)
+			snapshot.startElement(uri, localName, qName, attributes);
 		try {
-
-			String tag = localName.trim();
-
-			if (tag.equalsIgnoreCase(CFG)) {
-				processConfig(attributes);
-				return;
-			}
-
-			if (tag.equalsIgnoreCase(CFG_SITE)) {
-				processSite(attributes);
-				return;
-			}
-
-			if (tag.equalsIgnoreCase(CFG_FEATURE_ENTRY)) {
-				processFeature(attributes);
-				return;
+			switch (getElementType(localName)) {
+				case CONFIG_ELEMENT :
+					processConfig(attributes);
+					break;
+				case SITE_ELEMENT :
+					processSite(attributes);
+					break;
+				case FEATURE_ELEMENT :
+					processFeature(attributes);
+					break;
 			}
-
 		} catch (MalformedURLException e) {
 			throw new SAXException(NLS.bind(Messages.InstalledSiteParser_UnableToCreateURL, (new String[] { e.getMessage() })), e);
 		} catch (CoreException e) {
@@ -151,6 +183,7 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		
 		// reset current site
 		currentSiteURL = null;
+		currentSite = null;
 		
 		String urlString = attributes.getValue(CFG_URL); 
 		if (urlString == null)
@@ -166,9 +199,7 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		}
 		
 		// when reading externalized URLs, need to convert them to absolute form
-		String property = System.getProperty(URL_PROPERTY, EMPTY_STRING);
-		URL root = property == null || property.length() == 0 ? Utils.getInstallURL() : new URL(property);
-		url = Utils.makeAbsolute(root, url);
+		url = Utils.makeAbsolute(getResolutionRoot(), url);
 		
 		if (!isValidSite(url))
 			return;
@@ -199,7 +230,7 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 					StringTokenizer st = new StringTokenizer(pluginList,","); //$NON-NLS-1$
 					policyList = new String[st.countTokens()];
 					for (i=0; i<policyList.length; i++)
-						policyList[i] = st.nextToken();
+						policyList[i] = intern(st.nextToken());
 				}
 			}
 		}
@@ -227,10 +258,13 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		}
 
 		// DEBUG:		
-		Utils.debug("End process config site url:" + urlString + " policy:" + typeString + " updatable:"+flag ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (ConfigurationActivator.DEBUG)
+			Utils.debug("End process config site url:" + urlString + " policy:" + typeString + " updatable:"+flag ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		
 		currentSiteURL = site.getURL();
 		config.addSiteEntry(currentSiteURL.toExternalForm(), site);
+		// the features that follow are added to the site the configuration kept
+		currentSite = config.getSiteEntry(currentSiteURL.toExternalForm());
 	}
 	
 	/** 
@@ -242,17 +276,17 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		if (currentSiteURL == null)
 			return; // the site was not correct
 			
-		String id = attributes.getValue(CFG_FEATURE_ENTRY_ID); 
+		String id = intern(attributes.getValue(CFG_FEATURE_ENTRY_ID)); 
 		if (id == null)
 			return;
-		String version = attributes.getValue(CFG_FEATURE_ENTRY_VERSION); 
-		String pluginVersion = attributes.getValue(CFG_FEATURE_ENTRY_PLUGIN_VERSION); 
+		String version = intern(attributes.getValue(CFG_FEATURE_ENTRY_VERSION)); 
+		String pluginVersion = intern(attributes.getValue(CFG_FEATURE_ENTRY_PLUGIN_VERSION)); 
 		if (pluginVersion == null || pluginVersion.trim().length() == 0)
 			pluginVersion = version;
-		String pluginIdentifier = attributes.getValue(CFG_FEATURE_ENTRY_PLUGIN_IDENTIFIER); 
+		String pluginIdentifier = intern(attributes.getValue(CFG_FEATURE_ENTRY_PLUGIN_IDENTIFIER)); 
 		if (pluginIdentifier != null && pluginIdentifier.trim().length() == 0)
 			pluginIdentifier = null;
-		String application = attributes.getValue(CFG_FEATURE_ENTRY_APPLICATION); 
+		String application = intern(attributes.getValue(CFG_FEATURE_ENTRY_APPLICATION)); 
 		
 		// get install locations
 		String locations = attributes.getValue(CFG_FEATURE_ENTRY_ROOT);
@@ -260,8 +294,7 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		ArrayList rootList = new ArrayList(st.countTokens());
 		while (st.hasMoreTokens()){
 			try{
-				URL rootEntry = new URL(st.nextToken());
-				rootList.add(rootEntry);
+				rootList.add(getURL(st.nextToken()));
 			} catch (MalformedURLException e) {
 				// skip bad entries ...
 			}
@@ -283,8 +316,7 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 		if (url != null && url.trim().length() > 0)
 			featureEntry.setURL(url);
 		
-		SiteEntry site = config.getSiteEntry(currentSiteURL.toExternalForm());
-		site.addFeatureEntry(featureEntry);
+		currentSite.addFeatureEntry(featureEntry);
 		
 		// configured ?
 //		String configuredString = attributes.getValue("configured"); //$NON-NLS-1$
@@ -353,8 +385,9 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 			try {				
 				// resolve the config location relative to the configURL
 				if (url.getPath().startsWith("/config")) {	
-					URL config_loc = new URL(configURL, "..");
-					resolvedURL = PlatformConfiguration.resolvePlatformURL(url, config_loc); // 19536
+					if (configLocation == null)
+						configLocation = new URL(configURL, "..");
+					resolvedURL = PlatformConfiguration.resolvePlatformURL(url, configLocation); // 19536
 				}
 				else 
 					resolvedURL = PlatformConfiguration.resolvePlatformURL(url, config.getInstallURL()); // 19536
@@ -379,14 +412,14 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 	public void endElement(String uri, String localName, String qName)
 			throws SAXException {
 		super.endElement(uri, localName, qName);
+		if (snapshot != null)
+			snapshot.endElement(uri, localName, qName);
 		
 		// DEBUG:		
-		Utils.debug("End Element: uri:" + uri + " local Name:" + localName + " qName:" + qName); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (ConfigurationActivator.DEBUG)
+			Utils.debug("End Element: uri:" + uri + " local Name:" + localName + " qName:" + qName); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		try {
-
-			String tag = localName.trim();
-
-			if (tag.equalsIgnoreCase(CFG)) {
+			if (getElementType(localName) == CONFIG_ELEMENT) {
 				 // This is a bit of a hack.
 				 // When no features were added to the site, but the site is initialized from platform.xml 
 				 // we need to set the feature set to empty, so we don't try to detect them.
@@ -399,4 +432,44 @@ public class ConfigurationParser extends DefaultHandler implements IConfiguratio
 			// silent ignore
 		}
 	}
+
+	/*
+	 * Returns the type of the element, tag names are not case sensitive
+	 */
+	private static int getElementType(String localName) {
+		Integer type = (Integer) ELEMENTS.get(localName);
+		if (type == null)
+			type = (Integer) ELEMENTS.get(localName.trim().toLowerCase(Locale.ENGLISH));
+		return type == null ? UNKNOWN_ELEMENT : type.intValue();
+	}
+
+	/*
+	 * Returns the root externalized site URLs are relative to
+	 */
+	private URL getResolutionRoot() throws MalformedURLException {
+		if (resolutionRoot == null) {
+			String property = System.getProperty(URL_PROPERTY, EMPTY_STRING);
+			resolutionRoot = property == null || property.length() == 0 ? Utils.getInstallURL() : new URL(property);
+		}
+		return resolutionRoot;
+	}
+
+	private String intern(String value) {
+		if (value == null)
+			return null;
+		String shared = (String) strings.get(value);
+		if (shared != null)
+			return shared;
+		strings.put(value, value);
+		return value;
+	}
+
+	private URL getURL(String spec) throws MalformedURLException {
+		URL url = (URL) urls.get(spec);
+		if (url == null) {
+			url = new URL(spec);
+			urls.put(spec, url);
+		}
+		return url;
+	}
 }
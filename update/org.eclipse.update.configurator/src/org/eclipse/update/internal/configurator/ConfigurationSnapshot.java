@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.internal.configurator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Binary snapshot of the elements of a platform.xml file.
+ * <p>
+ * The snapshot is written next to the configuration file and records the
+ * start and end of its elements with their attributes. It is replayed to
+ * the configuration parser instead of parsing the XML when the length and
+ * checksum of the configuration file match the ones it was made from.
+ * <pre>
+ * int MAGIC int VERSION long length long checksum int events int bodyLength long bodyChecksum
+ * body: ( byte START string name int count ( string name string value )* | byte END string name )*
+ *       byte EOF
+ * </pre>
+ * The body is only replayed when its checksum, its number of events and its
+ * length match, and the EOF is the last byte of the file. The snapshot is
+ * written to a temporary file renamed into place, so a reader never sees a
+ * snapshot being written.
+ * </p>
+ */
+class ConfigurationSnapshot extends DefaultHandler {
+
+	static final String SNAPSHOT_SUFFIX = ".snapshot"; //$NON-NLS-1$
+	private static final int MAGIC = 0x50584d4c; // PXML
+	private static final int VERSION = 2;
+	private static final byte EOF = 0;
+	private static final byte START = 1;
+	private static final byte END = 2;
+
+	private ArrayList events = new ArrayList(); /* of Object[] {name, String[] attributes} or String name */
+
+	/*
+	 * @see DefaultHandler#startElement(String, String, String, Attributes)
+	 */
+	public void startElement(String uri, String localName, String qName, Attributes attributes) {
+		String[] values = new String[attributes.getLength() * 2];
+		for (int i = 0; i < attributes.getLength(); i++) {
+			values[2 * i] = attributes.getLocalName(i);
+			values[2 * i + 1] = attributes.getValue(i);
+		}
+		events.add(new Object[] {localName, values});
+	}
+
+	/*
+	 * @see DefaultHandler#endElement(String, String, String)
+	 */
+	public void endElement(String uri, String localName, String qName) {
+		events.add(localName);
+	}
+
+	/**
+	 * Returns the file holding the snapshot of the configuration file
+	 */
+	static File getSnapshotFile(File configFile) {
+		return new File(configFile.getPath() + SNAPSHOT_SUFFIX);
+	}
+
+	/**
+	 * Parses the configuration file and writes its snapshot
+	 */
+	static void create(File configFile) {
+		try {
+			byte[] content = read(configFile);
+			ConfigurationSnapshot snapshot = new ConfigurationSnapshot();
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			factory.setNamespaceAware(true);
+			factory.newSAXParser().parse(new InputSource(new ByteArrayInputStream(content)), snapshot);
+			snapshot.write(getSnapshotFile(configFile), content);
+		} catch (Exception e) {
+			// startup will parse the XML
+			getSnapshotFile(configFile).delete();
+			Utils.debug("Unable to create snapshot of " + configFile + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Writes the recorded elements of the given configuration file content
+	 */
+	void write(File snapshotFile, byte[] content) {
+		File tmpFile = null;
+		DataOutputStream out = null;
+		try {
+			ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(content.length);
+			DataOutputStream body = new DataOutputStream(bodyBytes);
+			for (int i = 0; i < events.size(); i++) {
+				Object event = events.get(i);
+				if (event instanceof String) {
+					body.writeByte(END);
+					writeString(body, (String) event);
+				} else {
+					String[] values = (String[]) ((Object[]) event)[1];
+					body.writeByte(START);
+					writeString(body, (String) ((Object[]) event)[0]);
+					body.writeInt(values.length / 2);
+					for (int j = 0; j < values.length; j++)
+						writeString(body, values[j]);
+				}
+			}
+			body.writeByte(EOF);
+			body.flush();
+			byte[] bodyContent = bodyBytes.toByteArray();
+
+			// several instances may write the snapshot at once, each uses its own file
+			tmpFile = File.createTempFile(snapshotFile.getName(), ".tmp", snapshotFile.getParentFile()); //$NON-NLS-1$
+			FileOutputStream fileOut = new FileOutputStream(tmpFile);
+			out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(content.length);
+			out.writeLong(checksum(content));
+			out.writeInt(events.size());
+			out.writeInt(bodyContent.length);
+			out.writeLong(checksum(bodyContent));
+			out.write(bodyContent);
+			out.flush();
+			fileOut.getFD().sync();
+			out.close();
+			out = null;
+			if (!tmpFile.renameTo(snapshotFile)) {
+				// the target cannot be replaced on some platforms
+				snapshotFile.delete();
+				if (!tmpFile.renameTo(snapshotFile))
+					throw new IOException("Unable to rename " + tmpFile); //$NON-NLS-1$
+			}
+			tmpFile = null;
+		} catch (IOException e) {
+			Utils.debug("Unable to write snapshot " + snapshotFile + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			}
+			if (tmpFile != null)
+				tmpFile.delete();
+		}
+	}
+
+	/**
+	 * Replays the snapshot of the configuration file content to the handler.
+	 * Returns <code>false</code>, without calling the handler, when there is
+	 * no snapshot, it was not made from this content or it is damaged.
+	 */
+	static boolean replay(File snapshotFile, byte[] content, DefaultHandler handler) throws SAXException {
+		if (!snapshotFile.isFile())
+			return false;
+		ArrayList events = new ArrayList();
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)));
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return false;
+			if (in.readLong() != content.length || in.readLong() != checksum(content))
+				return false;
+			int eventCount = in.readInt();
+			int bodyLength = in.readInt();
+			long bodyChecksum = in.readLong();
+			if (eventCount < 0 || bodyLength <= 0 || bodyLength > snapshotFile.length())
+				return false;
+			byte[] bodyContent = new byte[bodyLength];
+			in.readFully(bodyContent);
+			// the body must be complete and the last thing in the file
+			if (in.read() != -1 || checksum(bodyContent) != bodyChecksum)
+				return false;
+
+			// read it all first, a damaged snapshot must not be half replayed
+			DataInputStream body = new DataInputStream(new ByteArrayInputStream(bodyContent));
+			while (true) {
+				byte op = body.readByte();
+				if (op == EOF)
+					break;
+				if (op == END) {
+					events.add(readString(body));
+				} else if (op == START) {
+					String name = readString(body);
+					AttributesImpl attributes = new AttributesImpl();
+					int count = body.readInt();
+					if (count < 0)
+						return false;
+					for (int i = 0; i < count; i++) {
+						String attributeName = readString(body);
+						attributes.addAttribute("", attributeName, attributeName, "CDATA", readString(body)); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					events.add(new Object[] {name, attributes});
+				} else {
+					return false;
+				}
+			}
+			if (body.read() != -1 || events.size() != eventCount)
+				return false;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			if (in != null)
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+		}
+
+		for (int i = 0; i < events.size(); i++) {
+			Object event = events.get(i);
+			if (event instanceof String) {
+				handler.endElement("", (String) event, (String) event); //$NON-NLS-1$
+			} else {
+				String name = (String) ((Object[]) event)[0];
+				handler.startElement("", name, name, (Attributes) ((Object[]) event)[1]); //$NON-NLS-1$
+			}
+		}
+		return true;
+	}
+
+	static byte[] read(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] content = new byte[(int) file.length()];
+			int offset = 0;
+			int read;
+			while (offset < content.length && (read = in.read(content, offset, content.length - offset)) != -1)
+				offset += read;
+			if (offset == content.length)
+				return content;
+			byte[] truncated = new byte[offset];
+			System.arraycopy(content, 0, truncated, 0, offset);
+			return truncated;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static long checksum(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return crc.getValue();
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		// attribute values such as policy lists can exceed the writeUTF limit
+		byte[] bytes = value.getBytes("UTF-8"); //$NON-NLS-1$
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			throw new IOException();
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8"); //$NON-NLS-1$
+	}
+}
@@ -212,6 +212,11 @@ public class FeatureEntry
 	 * @see org.eclipse.core.runtime.IBundleGroup#getDescription()
 	 */
 	public String getDescription() {
+		if (description == null && !fullyParsed) {
+			BrandingCache cache = getBrandingCache();
+			if (cache != null)
+				description = cache.getDescription(this);
+		}
 		if (description == null)
 			fullParse();
 		return description;
@@ -226,9 +231,7 @@ public class FeatureEntry
 	 * @see org.eclipse.core.runtime.IBundleGroup#getName()
 	 */
 	public String getName() {
-		if (branding == null)
-			branding = AboutInfo.readFeatureInfo(id, version, getFeaturePluginIdentifier());
-		return branding.getProductName();
+		return getBranding().getProductName();
 	}
 	/* (non-Javadoc)
 	 * @see org.eclipse.core.runtime.IBundleGroup#getProperty(java.lang.String)
@@ -237,8 +240,7 @@ public class FeatureEntry
 		if (key == null)
 			return null;
 		
-		if (branding == null)
-			branding = AboutInfo.readFeatureInfo(id, version, getFeaturePluginIdentifier());
+		AboutInfo branding = getBranding();
 		
 		// IBundleGroupConstants
 		if (key.equals(FEATURE_IMAGE))
@@ -282,9 +284,7 @@ public class FeatureEntry
 	 * @see org.eclipse.core.runtime.IBundleGroup#getProviderName()
 	 */
 	public String getProviderName() {
-		if (branding == null)
-			branding = AboutInfo.readFeatureInfo(id, version, getFeaturePluginIdentifier());
-		return branding.getProviderName();
+		return getBranding().getProviderName();
 	}
 	/* (non-Javadoc)
 	 * @see org.eclipse.core.runtime.IBundleGroup#getVersion()
@@ -356,6 +356,22 @@ public class FeatureEntry
 		parser.parse();
 	}
 	
+	private AboutInfo getBranding() {
+		if (branding == null) {
+			BrandingCache cache = getBrandingCache();
+			if (cache != null)
+				branding = cache.getAboutInfo(this);
+			else
+				branding = AboutInfo.readFeatureInfo(id, version, getFeaturePluginIdentifier());
+		}
+		return branding;
+	}
+
+	private static BrandingCache getBrandingCache() {
+		ConfigurationActivator configurator = ConfigurationActivator.getConfigurator();
+		return configurator == null ? null : configurator.getBrandingCache();
+	}
+
 	public Bundle getDefiningBundle() {
 		return Utils.getBundle(getFeaturePluginIdentifier());
 	}
@@ -17,5 +17,10 @@ import java.io.IOException;
  */
 public interface Locker {
 	public boolean lock() throws IOException;
+	/**
+	 * Takes a lock that other shared locks can hold at the same time,
+	 * but not an exclusive lock
+	 */
+	public boolean lockShared() throws IOException;
 	public void release();
 }
@@ -38,6 +38,13 @@ public class Locker_JavaIo implements Locker {
 		return true;
 	}
 
+	/*
+	 * Without nio there are no shared locks, the lock is exclusive
+	 */
+	public boolean lockShared() throws IOException {
+		return lock();
+	}
+
 	public synchronized void release() {
 		try {
 			if (lockRAF != null) {
@@ -27,14 +27,22 @@ public class Locker_JavaNio implements Locker {
 		this.lockFile = lockFile;
 	}
 
-	public synchronized boolean lock() throws IOException {
+	public boolean lock() throws IOException {
+		return lock(false);
+	}
+
+	public boolean lockShared() throws IOException {
+		return lock(true);
+	}
+
+	private synchronized boolean lock(boolean shared) throws IOException {
 		raf = new RandomAccessFile(lockFile, "rw"); //$NON-NLS-1$
 		try{
 			/*
 			 * fix for bug http://bugs.sun.com/view_bug.do?bug_id=6628575 and
 			 * https://bugs.eclipse.org/bugs/show_bug.cgi?id=44735#c17
 			 */
-			fileLock = raf.getChannel().tryLock(0, 1, false);
+			fileLock = raf.getChannel().tryLock(0, 1, shared);
 		} catch(OverlappingFileLockException e) {
 			fileLock = null;
 		} finally {
@@ -63,9 +71,8 @@ public class Locker_JavaNio implements Locker {
 			}
 			raf = null;
 		}
-		if (lockFile != null) {
-			lockFile.delete();
-			lockFile = null;
-		}
+		// the lock file is kept: other instances may hold shared locks on it,
+		// deleting it would let the next one lock a new file
+		lockFile = null;
 	}
 }
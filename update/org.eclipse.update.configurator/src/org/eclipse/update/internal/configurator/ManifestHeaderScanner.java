@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.internal.configurator;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.osgi.util.ManifestElement;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Reads the given headers from the main section of a MANIFEST.MF.
+ * <p>
+ * Unlike <code>java.util.jar.Manifest</code> it does not build the attributes
+ * of the whole manifest: it stops reading as soon as all the headers were
+ * found, or at the end of the main section. Continuation lines are joined
+ * before the value is decoded, as a UTF-8 character may be split across them.
+ * </p>
+ */
+public class ManifestHeaderScanner {
+
+	private String[] names;
+	private String[] values;
+
+	/**
+	 * Scans the manifest for the headers
+	 * @param in the manifest, it is not closed
+	 * @param names the names of the headers, not case sensitive
+	 * @throws IOException if the manifest cannot be read or a header is malformed
+	 */
+	public ManifestHeaderScanner(InputStream in, String[] names) throws IOException {
+		this.names = names;
+		this.values = new String[names.length];
+		scan(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+	}
+
+	/**
+	 * Returns the value of the header, <code>null</code> if the manifest does not have it
+	 */
+	public String getValue(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equalsIgnoreCase(name))
+				return values[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the symbolic name from the value of a Bundle-SymbolicName header
+	 */
+	public static String getSymbolicName(String header) throws BundleException {
+		// the usual single name with simple directives does not need the full parser
+		if (header.indexOf('"') == -1 && header.indexOf(',') == -1) {
+			int end = header.indexOf(';');
+			String name = (end == -1 ? header : header.substring(0, end)).trim();
+			if (name.length() > 0)
+				return name;
+		}
+		ManifestElement[] elements = ManifestElement.parseHeader(Constants.BUNDLE_SYMBOLICNAME, header);
+		if (elements == null || elements.length == 0)
+			throw new BundleException(header);
+		return elements[0].getValue();
+	}
+
+	private void scan(InputStream in) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream(128);
+		int remaining = names.length;
+		int c = in.read();
+		while (c != -1 && remaining > 0) {
+			if (c == '\r' || c == '\n') {
+				// empty line, end of the main section
+				break;
+			}
+			// a header and its continuation lines
+			header.reset();
+			while (true) {
+				while (c != -1 && c != '\r' && c != '\n') {
+					header.write(c);
+					c = in.read();
+				}
+				c = skipLineEnd(in, c);
+				if (c != ' ')
+					break;
+				c = in.read();
+			}
+			if (setValue(header.toByteArray()))
+				remaining--;
+		}
+	}
+
+	/*
+	 * Returns the first character of the next line
+	 */
+	private static int skipLineEnd(InputStream in, int c) throws IOException {
+		if (c == '\r') {
+			c = in.read();
+			if (c == '\n')
+				c = in.read();
+		} else if (c == '\n') {
+			c = in.read();
+		}
+		return c;
+	}
+
+	/*
+	 * Keeps the value if the header is one of the wanted ones, returns true if
+	 * it was not found before
+	 */
+	private boolean setValue(byte[] line) throws IOException {
+		int separator = -1;
+		for (int i = 0; i < line.length - 1; i++) {
+			if (line[i] == ':' && line[i + 1] == ' ') {
+				separator = i;
+				break;
+			}
+		}
+		if (separator <= 0)
+			throw new IOException("Invalid header: " + new String(line, "UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+		String name = new String(line, 0, separator, "UTF-8"); //$NON-NLS-1$
+		for (int i = 0; i < names.length; i++) {
+			if (values[i] == null && names[i].equalsIgnoreCase(name)) {
+				values[i] = new String(line, separator + 2, line.length - separator - 2, "UTF-8"); //$NON-NLS-1$
+				return true;
+			}
+		}
+		return false;
+	}
+}
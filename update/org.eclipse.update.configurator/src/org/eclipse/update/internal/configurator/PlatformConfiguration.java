@@ -26,9 +26,13 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
@@ -41,6 +45,7 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.update.configurator.IPlatformConfiguration;
+import org.osgi.framework.BundleContext;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -66,6 +71,8 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	private Configuration config;
 	private URL configLocation;
 	private HashMap externalLinkSites; // used to restore prior link site state
+	private HashSet unchangedLinks = new HashSet(); // link files resolved from the links cache
+	private Properties linksCache; // the links cache as saved on this startup
 	private long changeStamp;
 	private long featuresChangeStamp;
 	private boolean featuresChangeStampIsValid;
@@ -80,12 +87,22 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 
 	private static final String ECLIPSE = "eclipse"; //$NON-NLS-1$
 	private static final String CONFIG_HISTORY = "history"; //$NON-NLS-1$
-	private static final String PLATFORM_XML = "platform.xml"; //$NON-NLS-1$
+	static final String PLATFORM_XML = "platform.xml"; //$NON-NLS-1$
 	private static final String CONFIG_NAME = ConfigurationActivator.NAME_SPACE + "/" + PLATFORM_XML; //$NON-NLS-1$
 	private static final String CONFIG_INI = "config.ini"; //NON-NLS-1$ //$NON-NLS-1$
 	private static final String CONFIG_FILE_LOCK_SUFFIX = ".lock"; //$NON-NLS-1$
+	private static final long LOCK_TIMEOUT = 5000;
+	private static final long LOCK_MIN_BACKOFF = 10;
+	private static final long LOCK_MAX_BACKOFF = 250;
+	// configuration lock statistics
+	private static long lockAcquisitions;
+	private static long lockContentions;
+	private static long lockTimeouts;
+	private static long lockWaitTime;
 	private static final String CONFIG_FILE_TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
 	private static final String LINKS = "links"; //$NON-NLS-1$
+	private static final String LINKS_CACHE = "links.cache"; //$NON-NLS-1$
+	private static final int MAX_LINK_THREADS = 8;
 	private static final String[] BOOTSTRAP_PLUGINS = {};
 
 	private static final String DEFAULT_FEATURE_APPLICATION = "org.eclipse.ui.ide.workbench"; //$NON-NLS-1$
@@ -94,6 +111,84 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	private static final String LINK_READ = "r"; //$NON-NLS-1$
 	private static final String LINK_READ_WRITE = "rw"; //$NON-NLS-1$
 	private static URL installURL;
+	private volatile Index index; // lookup tables of the configured features and plugins
+	private static final int MAX_INDEX_BUILDS = 3;
+
+	/*
+	 * Immutable lookup tables computed from the sites of a configuration.
+	 * A new index replaces it when the configuration changes, so it can be
+	 * read without locking.
+	 */
+	private static class Index {
+		final Configuration config;
+		final long stamp;
+		final FeatureEntry[] features;
+		final HashMap featuresById = new HashMap(); /* key=id value=FeatureEntry */
+		final PluginEntry[] plugins;
+		final HashMap pluginsById = new HashMap(); /* key=id value=PluginEntry[] */
+		final URL[] pluginPath;
+		final HashSet pluginPaths = new HashSet(); /* of String */
+
+		Index(Configuration config, long stamp, SiteEntry[] sites, ISiteEntry[] configuredSites) {
+			this.config = config;
+			this.stamp = stamp;
+			ArrayList allFeatures = new ArrayList();
+			for (int i = 0; i < sites.length; i++) {
+				FeatureEntry[] siteFeatures = sites[i].getFeatureEntries();
+				for (int j = 0; j < siteFeatures.length; j++) {
+					allFeatures.add(siteFeatures[j]);
+					// the first site declaring a feature wins, as in a search of the sites
+					if (!featuresById.containsKey(siteFeatures[j].getFeatureIdentifier()))
+						featuresById.put(siteFeatures[j].getFeatureIdentifier(), siteFeatures[j]);
+				}
+			}
+			features = (FeatureEntry[]) allFeatures.toArray(new FeatureEntry[allFeatures.size()]);
+
+			ArrayList allPlugins = new ArrayList();
+			ArrayList path = new ArrayList();
+			HashMap pluginLists = new HashMap(); /* key=id value=ArrayList of PluginEntry */
+			Utils.debug("computed plug-in path:"); //$NON-NLS-1$
+			for (int i = 0; i < configuredSites.length; i++) {
+				String[] sitePlugins = configuredSites[i].getPlugins();
+				for (int j = 0; j < sitePlugins.length; j++) {
+					pluginPaths.add(sitePlugins[j]);
+					try {
+						URL pathURL = new URL(((SiteEntry) configuredSites[i]).getResolvedURL(), sitePlugins[j]);
+						path.add(pathURL);
+						Utils.debug("   " + pathURL.toString()); //$NON-NLS-1$
+					} catch (MalformedURLException e) {
+						// skip entry ...
+						Utils.debug("   bad URL: " + e); //$NON-NLS-1$
+					}
+				}
+
+				if (!(configuredSites[i] instanceof SiteEntry)) {
+					Utils.debug("Site " + configuredSites[i].getURL() + " is not a SiteEntry"); //$NON-NLS-1$ //$NON-NLS-2$
+					continue;
+				}
+				PluginEntry[] sitePluginEntries = ((SiteEntry) configuredSites[i]).getPluginEntries();
+				for (int j = 0; j < sitePluginEntries.length; j++) {
+					allPlugins.add(sitePluginEntries[j]);
+					String id = sitePluginEntries[j].getPluginIdentifier();
+					if (id == null)
+						continue;
+					ArrayList entries = (ArrayList) pluginLists.get(id);
+					if (entries == null) {
+						entries = new ArrayList(1);
+						pluginLists.put(id, entries);
+					}
+					entries.add(sitePluginEntries[j]);
+				}
+			}
+			plugins = (PluginEntry[]) allPlugins.toArray(new PluginEntry[allPlugins.size()]);
+			pluginPath = (URL[]) path.toArray(new URL[path.size()]);
+			for (Iterator it = pluginLists.entrySet().iterator(); it.hasNext();) {
+				Map.Entry entry = (Map.Entry) it.next();
+				ArrayList entries = (ArrayList) entry.getValue();
+				pluginsById.put(entry.getKey(), entries.toArray(new PluginEntry[entries.size()]));
+			}
+		}
+	}
 
 	private PlatformConfiguration(Location platformConfigLocation) throws CoreException, IOException {
 
@@ -137,6 +232,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			if (changeStamp > config.getDate().getTime())
 				reconcile();
 		}
+		forgetMissingLinkSites();
 	}
 
 	PlatformConfiguration(URL url) throws Exception {
@@ -230,6 +326,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 
 		if (entry instanceof SiteEntry)
 			config.addSiteEntry(key, (SiteEntry) entry);
+		index = null;
 	}
 
 	/*
@@ -246,6 +343,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 		String key = url.toExternalForm();
 		if (entry instanceof SiteEntry)
 			config.removeSiteEntry(key);
+		index = null;
 	}
 
 	/*
@@ -339,6 +437,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			} catch (MalformedURLException e) {
 			}
 		}
+		index = null;
 	}
 
 	/*
@@ -353,20 +452,17 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			return;
 
 		config.unconfigureFeatureEntry(entry);
+		index = null;
 	}
 
 	/*
 	 * @see IPlatformConfiguration#getConfiguredFeatureEntries()
 	 */
 	public IFeatureEntry[] getConfiguredFeatureEntries() {
-		ArrayList configFeatures = new ArrayList();
-		SiteEntry[] sites = config.getSites();
-		for (int i = 0; i < sites.length; i++) {
-			FeatureEntry[] features = sites[i].getFeatureEntries();
-			for (int j = 0; j < features.length; j++)
-				configFeatures.add(features[j]);
-		}
-		return (IFeatureEntry[]) configFeatures.toArray(new FeatureEntry[configFeatures.size()]);
+		FeatureEntry[] features = getIndex().features;
+		FeatureEntry[] result = new FeatureEntry[features.length];
+		System.arraycopy(features, 0, result, 0, features.length);
+		return result;
 	}
 
 	/*
@@ -376,13 +472,51 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 		if (id == null)
 			return null;
 
-		SiteEntry[] sites = config.getSites();
-		for (int i = 0; i < sites.length; i++) {
-			FeatureEntry f = sites[i].getFeatureEntry(id);
-			if (f != null)
-				return f;
+		return (IFeatureEntry) getIndex().featuresById.get(id);
+	}
+
+	/**
+	 * Returns the plugin entries of the configured sites with the given identifier
+	 */
+	public PluginEntry[] findConfiguredPluginEntries(String id) {
+		if (id == null)
+			return new PluginEntry[0];
+
+		PluginEntry[] plugins = (PluginEntry[]) getIndex().pluginsById.get(id);
+		if (plugins == null)
+			return new PluginEntry[0];
+		PluginEntry[] result = new PluginEntry[plugins.length];
+		System.arraycopy(plugins, 0, result, 0, plugins.length);
+		return result;
+	}
+
+	/*
+	 * Returns the lookup tables of the current configuration, they are
+	 * computed again when the configuration changed since they were built
+	 */
+	private Index getIndex() {
+		if (config == null)
+			return new Index(null, 0, new SiteEntry[0], new ISiteEntry[0]);
+		Index current = index;
+		if (current != null && current.config == config && current.stamp == config.getModificationStamp())
+			return current;
+		synchronized (this) {
+			current = index;
+			if (current != null && current.config == config && current.stamp == config.getModificationStamp())
+				return current;
+			// the stamp is taken before the tables, a change made while they are
+			// computed leaves the index stale rather than missing from it
+			long stamp = config.getModificationStamp();
+			for (int i = 0; i < MAX_INDEX_BUILDS; i++) {
+				current = new Index(config, stamp, config.getSites(), getConfiguredSites());
+				// computing the tables may detect the content of the sites
+				if (stamp == config.getModificationStamp())
+					break;
+				stamp = config.getModificationStamp();
+			}
+			index = current;
+			return current;
 		}
-		return null;
 	}
 
 	/*
@@ -458,62 +592,24 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	 * @see IPlatformConfiguration#getPluginPath()
 	 */
 	public URL[] getPluginPath() {
-		ArrayList path = new ArrayList();
-		Utils.debug("computed plug-in path:"); //$NON-NLS-1$
-
-		ISiteEntry[] sites = getConfiguredSites();
-		URL pathURL;
-		for (int i = 0; i < sites.length; i++) {
-			String[] plugins = sites[i].getPlugins();
-			for (int j = 0; j < plugins.length; j++) {
-				try {
-					pathURL = new URL(((SiteEntry) sites[i]).getResolvedURL(), plugins[j]);
-					path.add(pathURL);
-					Utils.debug("   " + pathURL.toString()); //$NON-NLS-1$
-				} catch (MalformedURLException e) {
-					// skip entry ...
-					Utils.debug("   bad URL: " + e); //$NON-NLS-1$
-				}
-			}
-		}
-		return (URL[]) path.toArray(new URL[0]);
+		URL[] path = getIndex().pluginPath;
+		URL[] result = new URL[path.length];
+		System.arraycopy(path, 0, result, 0, path.length);
+		return result;
 	}
 
 	public Set getPluginPaths() {
-
-		HashSet paths = new HashSet();
-		ISiteEntry[] sites = getConfiguredSites();
-
-		for (int i = 0; i < sites.length; i++) {
-			String[] plugins = sites[i].getPlugins();
-			for (int j = 0; j < plugins.length; j++) {
-				paths.add(plugins[j]);
-			}
-		}
-
-		return paths;
+		return new HashSet(getIndex().pluginPaths);
 	}
 
 	/*
 	 * A variation of the getPluginPath, but it returns the actual plugin entries
 	 */
 	public PluginEntry[] getPlugins() {
-		ArrayList allPlugins = new ArrayList();
-		Utils.debug("computed plug-ins:"); //$NON-NLS-1$
-
-		ISiteEntry[] sites = getConfiguredSites();
-		for (int i = 0; i < sites.length; i++) {
-			if (!(sites[i] instanceof SiteEntry)) {
-				Utils.debug("Site " + sites[i].getURL() + " is not a SiteEntry"); //$NON-NLS-1$ //$NON-NLS-2$
-				continue;
-			}
-			PluginEntry[] plugins = ((SiteEntry) sites[i]).getPluginEntries();
-			for (int j = 0; j < plugins.length; j++) {
-				allPlugins.add(plugins[j]);
-				Utils.debug("   " + plugins[j].getURL()); //$NON-NLS-1$
-			}
-		}
-		return (PluginEntry[]) allPlugins.toArray(new PluginEntry[0]);
+		PluginEntry[] plugins = getIndex().plugins;
+		PluginEntry[] result = new PluginEntry[plugins.length];
+		System.arraycopy(plugins, 0, result, 0, plugins.length);
+		return result;
 	}
 
 	/*
@@ -611,85 +707,102 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			if (workingDir != null && !workingDir.exists())
 				workingDir.mkdirs();
 
-			// Do safe i/o: 
-			//    - backup current config, by moving it to the history folder
-			//    - write new config to platform.xml.tmp file
-			//    - rename the temp file to platform.xml
-			File cfigFileOriginal = new File(cfigFile.getAbsolutePath());
-			File cfigTmp = new File(cfigFile.getAbsolutePath() + CONFIG_FILE_TEMP_SUFFIX);
-
-			// Backup old file
-			if (cfigFile.exists()) {
-				File backupDir = new File(workingDir, CONFIG_HISTORY);
-				if (!backupDir.exists())
-					backupDir.mkdir();
-				long timestamp = cfigFile.lastModified();
-				File preservedFile = new File(backupDir, String.valueOf(timestamp) + ".xml"); //$NON-NLS-1$
-				// If the target file exists, increment the timestamp. Try at most 100 times.
-				long increment = 1;
-				while (preservedFile.exists() && increment < 100) {
-					preservedFile = new File(backupDir, String.valueOf(timestamp + increment++) + ".xml"); //$NON-NLS-1$
-				}
-				if (!preservedFile.exists()) {
-					// try renaming current config to backup copy
-					if (!cfigFile.renameTo(preservedFile))
-						Utils.log(Messages.PlatformConfiguration_cannotBackupConfig);
-				}
+			// exclude the instances reading or saving the configuration
+			Locker saveLock = acquireLock(new File(workingDir, CONFIG_FILE_LOCK_SUFFIX), false);
+			try {
+				saveConfigFile(cfigFile, workingDir);
+			} finally {
+				if (saveLock != null)
+					saveLock.release();
+			}
+		}
+	}
+
+	/*
+	 * Writes the configuration to the file, keeping a backup of the previous one
+	 */
+	private void saveConfigFile(File cfigFile, File workingDir) throws IOException {
+		OutputStream os = null;
+		// Do safe i/o: 
+		//    - backup current config, by moving it to the history folder
+		//    - write new config to platform.xml.tmp file
+		//    - rename the temp file to platform.xml
+		File cfigFileOriginal = new File(cfigFile.getAbsolutePath());
+		File cfigTmp = new File(cfigFile.getAbsolutePath() + CONFIG_FILE_TEMP_SUFFIX);
+
+		// Backup old file
+		if (cfigFile.exists()) {
+			File backupDir = new File(workingDir, CONFIG_HISTORY);
+			if (!backupDir.exists())
+				backupDir.mkdir();
+			long timestamp = cfigFile.lastModified();
+			File preservedFile = new File(backupDir, String.valueOf(timestamp) + ".xml"); //$NON-NLS-1$
+			// If the target file exists, increment the timestamp. Try at most 100 times.
+			long increment = 1;
+			while (preservedFile.exists() && increment < 100) {
+				preservedFile = new File(backupDir, String.valueOf(timestamp + increment++) + ".xml"); //$NON-NLS-1$
+			}
+			if (!preservedFile.exists()) {
+				// try renaming current config to backup copy
+				if (!cfigFile.renameTo(preservedFile))
+					Utils.log(Messages.PlatformConfiguration_cannotBackupConfig);
 			}
+		}
 
-			// first save the file as temp
-			os = new FileOutputStream(cfigTmp);
+		// first save the file as temp
+		os = new FileOutputStream(cfigTmp);
 
+		try {
+			saveAsXML(os);
+			// Try flushing any internal buffers, and synchronize with the disk
 			try {
-				saveAsXML(os);
-				// Try flushing any internal buffers, and synchronize with the disk
-				try {
-					os.flush();
-					((FileOutputStream) os).getFD().sync();
-				} catch (SyncFailedException e2) {
-					Utils.log(e2.getMessage());
-				} catch (IOException e2) {
-					Utils.log(e2.getMessage());
-				}
+				os.flush();
+				((FileOutputStream) os).getFD().sync();
+			} catch (SyncFailedException e2) {
+				Utils.log(e2.getMessage());
+			} catch (IOException e2) {
+				Utils.log(e2.getMessage());
+			}
+			try {
+				os.close();
+				os = null;
+			} catch (IOException e1) {
+				Utils.log(Messages.PlatformConfiguration_cannotCloseStream + cfigTmp);
+				Utils.log(e1.getMessage());
+			}
+			// set file time stamp to match that of the config element
+			cfigTmp.setLastModified(config.getDate().getTime());
+			// set this on config, in case the value was rounded off
+			config.setLastModified(cfigTmp.lastModified());
+			// make the change stamp to be the same as the config file
+			changeStamp = config.getDate().getTime();
+			config.setDirty(false);
+		} catch (CoreException e) {
+			throw new IOException(NLS.bind(Messages.cfig_unableToSave, (new String[] {cfigTmp.getAbsolutePath()})));
+		} finally {
+			if (os != null)
 				try {
 					os.close();
-					os = null;
 				} catch (IOException e1) {
-					Utils.log(Messages.PlatformConfiguration_cannotCloseStream + cfigTmp);
-					Utils.log(e1.getMessage());
+					Utils.log(Messages.PlatformConfiguration_cannotCloseTempFile + cfigTmp);
 				}
-				// set file time stamp to match that of the config element
-				cfigTmp.setLastModified(config.getDate().getTime());
-				// set this on config, in case the value was rounded off
-				config.setLastModified(cfigTmp.lastModified());
-				// make the change stamp to be the same as the config file
-				changeStamp = config.getDate().getTime();
-				config.setDirty(false);
-			} catch (CoreException e) {
-				throw new IOException(NLS.bind(Messages.cfig_unableToSave, (new String[] {cfigTmp.getAbsolutePath()})));
-			} finally {
-				if (os != null)
-					try {
-						os.close();
-					} catch (IOException e1) {
-						Utils.log(Messages.PlatformConfiguration_cannotCloseTempFile + cfigTmp);
-					}
-			}
+		}
 
-			// at this point we have old config (if existed) as "bak" and the
-			// new config as "tmp".
-			boolean ok = cfigTmp.renameTo(cfigFileOriginal);
-			if (!ok) {
-				// this codepath represents a tiny failure window. The load processing
-				// on startup will detect missing config and will attempt to start
-				// with "tmp" (latest), then "bak" (the previous). We can also end up
-				// here if we failed to rename the current config to "bak". In that
-				// case we will restart with the previous state.
-				Utils.log(Messages.PlatformConfiguration_cannotRenameTempFile);
-
-				throw new IOException(NLS.bind(Messages.cfig_unableToSave, (new String[] {cfigTmp.getAbsolutePath()})));
-			}
+		// at this point we have old config (if existed) as "bak" and the
+		// new config as "tmp".
+		boolean ok = cfigTmp.renameTo(cfigFileOriginal);
+		if (!ok) {
+			// this codepath represents a tiny failure window. The load processing
+			// on startup will detect missing config and will attempt to start
+			// with "tmp" (latest), then "bak" (the previous). We can also end up
+			// here if we failed to rename the current config to "bak". In that
+			// case we will restart with the previous state.
+			Utils.log(Messages.PlatformConfiguration_cannotRenameTempFile);
+
+			throw new IOException(NLS.bind(Messages.cfig_unableToSave, (new String[] {cfigTmp.getAbsolutePath()})));
 		}
+		// the next startup replays the snapshot instead of parsing the new config
+		ConfigurationSnapshot.create(cfigFileOriginal);
 	}
 
 	public static PlatformConfiguration getCurrent() {
@@ -833,7 +946,8 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	}
 
 	/**
-	 * Gets the configuration lock
+	 * Gets the configuration lock to read the configuration, it is shared
+	 * with the other instances reading it and excludes the ones saving it
 	 * @param url configuration directory
 	 */
 	private void getConfigurationLock(URL url) {
@@ -842,13 +956,87 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 
 		File lockFile = new File(url.getFile(), ConfigurationActivator.NAME_SPACE + File.separator + CONFIG_FILE_LOCK_SUFFIX);
 		verifyPath(url, config == null ? null : config.getInstallURL());
+		lock = acquireLock(lockFile, true);
+	}
+
+	/*
+	 * Takes the lock, waiting with an increasing backoff while another instance holds it.
+	 * Returns null if it could not be taken in time or the thread was interrupted,
+	 * the caller goes on without it as the lock is advisory.
+	 */
+	private static Locker acquireLock(File lockFile, boolean shared) {
 		// PAL nio optional
-		lock = createLocker(lockFile);
+		Locker locker = createLocker(lockFile);
+		long start = System.currentTimeMillis();
+		long backoff = LOCK_MIN_BACKOFF;
+		boolean contended = false;
 		try {
-			lock.lock();
+			while (!(shared ? locker.lockShared() : locker.lock())) {
+				contended = true;
+				long waited = System.currentTimeMillis() - start;
+				if (waited >= LOCK_TIMEOUT) {
+					recordLock(true, waited, true);
+					Utils.debug("Timed out waiting for configuration lock " + lockFile); //$NON-NLS-1$
+					return null;
+				}
+				try {
+					Thread.sleep(Math.min(backoff, LOCK_TIMEOUT - waited));
+				} catch (InterruptedException e) {
+					// stop waiting, the caller goes on without the lock
+					Thread.currentThread().interrupt();
+					recordLock(true, System.currentTimeMillis() - start, true);
+					Utils.debug("Interrupted while waiting for configuration lock " + lockFile); //$NON-NLS-1$
+					return null;
+				}
+				backoff = Math.min(backoff * 2, LOCK_MAX_BACKOFF);
+			}
 		} catch (IOException ioe) {
-			lock = null;
+			return null;
 		}
+		long waited = System.currentTimeMillis() - start;
+		recordLock(contended, waited, false);
+		if (contended)
+			Utils.debug("Waited " + waited + "ms for " + (shared ? "shared" : "exclusive") + " configuration lock " + lockFile); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		return locker;
+	}
+
+	private static synchronized void recordLock(boolean contended, long waited, boolean timedOut) {
+		if (timedOut)
+			lockTimeouts++;
+		else
+			lockAcquisitions++;
+		if (contended)
+			lockContentions++;
+		lockWaitTime += waited;
+	}
+
+	/**
+	 * Returns the number of times the configuration lock was taken
+	 */
+	public static synchronized long getLockAcquisitions() {
+		return lockAcquisitions;
+	}
+
+	/**
+	 * Returns the number of times the configuration lock was held by another instance
+	 * when it was requested
+	 */
+	public static synchronized long getLockContentions() {
+		return lockContentions;
+	}
+
+	/**
+	 * Returns the number of times the configuration lock could not be taken in time
+	 */
+	public static synchronized long getLockTimeouts() {
+		return lockTimeouts;
+	}
+
+	/**
+	 * Returns the total time, in milliseconds, spent waiting for the configuration lock
+	 */
+	public static synchronized long getLockWaitTime() {
+		return lockWaitTime;
 	}
 
 	private void clearConfigurationLock() {
@@ -879,11 +1067,14 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	}
 
 	private long computeChangeStamp() {
+		long start = StartupProfile.start();
 		featuresChangeStamp = computeFeaturesChangeStamp();
 		pluginsChangeStamp = computePluginsChangeStamp();
 		changeStamp = Math.max(featuresChangeStamp, pluginsChangeStamp);
 		// round off to seconds
 		changeStamp = (changeStamp / 1000) * 1000;
+		if (StartupProfile.isRecording())
+			StartupProfile.record("computeChangeStamp", null, start, config.getSites().length, -1); //$NON-NLS-1$
 		return changeStamp;
 	}
 
@@ -929,48 +1120,115 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 		}
 
 		File linkDir = new File(linkURL.getFile());
-		File[] links = linkDir.listFiles();
+		final File[] links = linkDir.listFiles();
 		if (links == null || links.length == 0) {
 			Utils.debug("No links detected in " + linkURL.toExternalForm()); //$NON-NLS-1$
 			return;
 		}
 
-		for (int i = 0; i < links.length; i++) {
-			if (links[i].isDirectory())
-				continue;
-			Utils.debug("Link file " + links[i].getAbsolutePath()); //$NON-NLS-1$
-			Properties props = new Properties();
-			FileInputStream is = null;
-			try {
-				is = new FileInputStream(links[i]);
-				props.load(is);
-				configureExternalLinkSite(links[i], props);
-			} catch (IOException e) {
-				// skip bad links ...
-				Utils.debug("   unable to load link file " + e); //$NON-NLS-1$
-				continue;
-			} finally {
-				if (is != null) {
-					try {
-						is.close();
-					} catch (IOException e) {
-						// ignore ...
+		// link sites are resolved concurrently, the link file system may be slow
+		long linksStart = StartupProfile.start();
+		final Properties linksCache = loadLinksCache();
+		final Map resolvedLinks = new HashMap(); /* key=File value=LinkInfo */
+		final List pending = new ArrayList(Arrays.asList(links));
+		Runnable resolver = new Runnable() {
+			public void run() {
+				while (true) {
+					File link;
+					synchronized (pending) {
+						if (pending.isEmpty())
+							return;
+						link = (File) pending.remove(0);
+					}
+					long start = System.currentTimeMillis();
+					LinkInfo info = resolveExternalLink(link, linksCache);
+					Utils.debug("Link file " + link.getAbsolutePath() + " resolved in " + (System.currentTimeMillis() - start) + "ms" + (info != null && info.unchanged ? " (cached)" : "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+					if (StartupProfile.isRecording())
+						StartupProfile.record("resolveExternalLink", link, start, -1, info != null && info.unchanged ? 0 : link.length()); //$NON-NLS-1$
+					if (info != null) {
+						synchronized (resolvedLinks) {
+							resolvedLinks.put(link, info);
+						}
 					}
 				}
 			}
+		};
+		int numberOfThreads = Math.min(links.length, MAX_LINK_THREADS);
+		Thread[] threads = new Thread[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			threads[i] = new Thread(resolver, "LinkResolver-" + i); //$NON-NLS-1$
+			threads[i].start();
+		}
+		boolean interrupted = false;
+		int i = 0;
+		while (i < numberOfThreads) {
+			try {
+				threads[i].join();
+				i++;
+			} catch (InterruptedException e) {
+				// the links are needed, keep waiting and interrupt again when done
+				interrupted = true;
+			}
 		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+
+		// configure the sites in the order of the link files, the first one in wins
+		Properties newLinksCache = new Properties();
+		for (i = 0; i < links.length; i++) {
+			LinkInfo info = (LinkInfo) resolvedLinks.get(links[i]);
+			if (info == null)
+				continue;
+			String linkName = links[i].getAbsolutePath();
+			newLinksCache.setProperty(linkName, info.toCacheEntry());
+			if (info.unchanged)
+				unchangedLinks.add(linkName);
+			configureExternalLinkSite(links[i], info.updateable, info.siteURL);
+		}
+		if (!newLinksCache.equals(linksCache))
+			saveLinksCache(newLinksCache);
+		this.linksCache = newLinksCache;
+		StartupProfile.record("configureExternalLinks", linkDir, linksStart, links.length, -1); //$NON-NLS-1$
 	}
 
-	private void configureExternalLinkSite(File linkFile, Properties props) {
+	/*
+	 * Reads the link file, or takes it from the cache when the file has not been modified
+	 */
+	private static LinkInfo resolveExternalLink(File linkFile, Properties linksCache) {
+		if (linkFile.isDirectory())
+			return null;
+		long lastModified = linkFile.lastModified();
+		LinkInfo info = LinkInfo.fromCacheEntry(linksCache.getProperty(linkFile.getAbsolutePath()), lastModified);
+		if (info != null)
+			return info;
+
+		Properties props = new Properties();
+		FileInputStream is = null;
+		try {
+			is = new FileInputStream(linkFile);
+			props.load(is);
+		} catch (IOException e) {
+			// skip bad links ...
+			Utils.debug("   unable to load link file " + e); //$NON-NLS-1$
+			return null;
+		} finally {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (IOException e) {
+					// ignore ...
+				}
+			}
+		}
+
 		String path = props.getProperty(LINK_PATH);
 		if (path == null) {
 			Utils.debug("   no path definition"); //$NON-NLS-1$
-			return;
+			return null;
 		}
 
 		String link;
 		boolean updateable = true;
-		URL siteURL;
 
 		// parse out link information
 		if (path.startsWith(LINK_READ + " ")) { //$NON-NLS-1$
@@ -986,15 +1244,18 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 		try {
 			File siteFile = new File(link);
 			siteFile = new File(siteFile, ECLIPSE);
-			siteURL = siteFile.toURL();
-			if (findConfiguredSite(siteURL, true) != null)
-				// linked site is already known
-				return;
+			return new LinkInfo(lastModified, updateable, siteFile.toURL(), false);
 		} catch (MalformedURLException e) {
 			// ignore bad links ...
 			Utils.debug("  bad URL " + e); //$NON-NLS-1$
-			return;
+			return null;
 		}
+	}
+
+	private void configureExternalLinkSite(File linkFile, boolean updateable, URL siteURL) {
+		if (findConfiguredSite(siteURL, true) != null)
+			// linked site is already known
+			return;
 
 		// process the link
 		SiteEntry linkSite = (SiteEntry) externalLinkSites.get(siteURL);
@@ -1015,17 +1276,163 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 		Utils.debug("   " + (updateable ? "R/W -> " : "R/O -> ") + siteURL.toString()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 
+	/*
+	 * The resolved link files of the previous startup, stored next to the configuration.
+	 * They are ignored when the configuration is checked.
+	 */
+	private Properties loadLinksCache() {
+		Properties linksCache = new Properties();
+		File cacheFile = getLinksCacheFile();
+		if (cacheFile == null || !cacheFile.exists())
+			return linksCache;
+		BundleContext context = ConfigurationActivator.getBundleContext();
+		if (context != null && ("true".equals(context.getProperty("osgi.clean")) || "true".equals(context.getProperty("osgi.checkConfiguration")))) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			return linksCache;
+		FileInputStream is = null;
+		try {
+			is = new FileInputStream(cacheFile);
+			linksCache.load(is);
+		} catch (IOException e) {
+			linksCache.clear();
+		} catch (IllegalArgumentException e) {
+			linksCache.clear();
+		} finally {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (IOException e) {
+					// ignore ...
+				}
+			}
+		}
+		return linksCache;
+	}
+
+	/*
+	 * Drops the links cache entries of the unchanged link files whose site the
+	 * detection found missing. The link file is read and its site checked again
+	 * on next startup.
+	 */
+	private void forgetMissingLinkSites() {
+		if (linksCache == null || unchangedLinks.isEmpty())
+			return;
+		boolean forgotten = false;
+		SiteEntry[] sites = config.getSites();
+		for (int i = 0; i < sites.length; i++) {
+			String linkName = sites[i].getLinkFileName();
+			if (linkName != null && unchangedLinks.contains(linkName) && sites[i].isSiteRootMissing()) {
+				linksCache.remove(linkName);
+				forgotten = true;
+				Utils.debug("Site " + sites[i].getResolvedURL() + " is missing ... checking link file " + linkName + " on next startup"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		if (forgotten)
+			saveLinksCache(linksCache);
+	}
+
+	private void saveLinksCache(Properties linksCache) {
+		File cacheFile = getLinksCacheFile();
+		if (cacheFile == null)
+			return;
+		File tmpFile = null;
+		OutputStream os = null;
+		try {
+			// written aside and renamed, a partial cache would be taken as valid
+			tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile()); //$NON-NLS-1$
+			FileOutputStream fileOut = new FileOutputStream(tmpFile);
+			os = fileOut;
+			linksCache.store(os, null);
+			os.flush();
+			fileOut.getFD().sync();
+			os.close();
+			os = null;
+			if (!tmpFile.renameTo(cacheFile)) {
+				// the target cannot be replaced on some platforms
+				cacheFile.delete();
+				if (!tmpFile.renameTo(cacheFile))
+					throw new IOException("Unable to rename " + tmpFile); //$NON-NLS-1$
+			}
+			tmpFile = null;
+		} catch (IOException e) {
+			Utils.debug("Unable to save link cache " + e); //$NON-NLS-1$
+		} finally {
+			if (os != null) {
+				try {
+					os.close();
+				} catch (IOException e) {
+					// ignore ...
+				}
+			}
+			if (tmpFile != null)
+				tmpFile.delete();
+		}
+	}
+
+	private File getLinksCacheFile() {
+		if (configLocation == null || !"file".equals(configLocation.getProtocol())) //$NON-NLS-1$
+			return null;
+		File configFile = new File(configLocation.getFile().replace('/', File.separatorChar));
+		return new File(configFile.getParentFile(), LINKS_CACHE);
+	}
+
+	/*
+	 * A resolved link file
+	 */
+	private static class LinkInfo {
+		final long lastModified;
+		final boolean updateable;
+		final URL siteURL;
+		final boolean unchanged; // taken from the cache
+
+		LinkInfo(long lastModified, boolean updateable, URL siteURL, boolean unchanged) {
+			this.lastModified = lastModified;
+			this.updateable = updateable;
+			this.siteURL = siteURL;
+			this.unchanged = unchanged;
+		}
+
+		/*
+		 * <last modified>,<r|rw>,<site url>
+		 */
+		String toCacheEntry() {
+			return lastModified + "," + (updateable ? LINK_READ_WRITE : LINK_READ) + "," + siteURL.toExternalForm(); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		static LinkInfo fromCacheEntry(String entry, long lastModified) {
+			if (entry == null || lastModified == 0)
+				return null;
+			int first = entry.indexOf(',');
+			int second = entry.indexOf(',', first + 1);
+			if (first == -1 || second == -1)
+				return null;
+			try {
+				if (Long.parseLong(entry.substring(0, first)) != lastModified)
+					return null;
+				boolean updateable = LINK_READ_WRITE.equals(entry.substring(first + 1, second));
+				return new LinkInfo(lastModified, updateable, new URL(entry.substring(second + 1)), true);
+			} catch (NumberFormatException e) {
+				return null;
+			} catch (MalformedURLException e) {
+				return null;
+			}
+		}
+	}
+
 	private void validateSites() {
 
 		// check to see if all sites are valid. Remove any sites that do not exist.
+		long start = StartupProfile.start();
 		SiteEntry[] list = config.getSites();
 		for (int i = 0; i < list.length; i++) {
 			URL siteURL = list[i].getResolvedURL();
 			if (!supportsDetection(siteURL, config.getInstallURL()))
 				continue;
 
+			// the sites of unchanged link files were checked when the link was first seen
+			String linkName = list[i].getLinkFileName();
+			boolean unchangedLink = linkName != null && unchangedLinks.contains(linkName);
 			File siteRoot = new File(siteURL.getFile().replace('/', File.separatorChar));
-			if (!siteRoot.exists()) {
+			if (!unchangedLink && !siteRoot.exists()) {
 				unconfigureSite(list[i]);
 				Utils.debug("Site " + siteURL + " does not exist ... removing from configuration"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
@@ -1035,7 +1442,6 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			// A better algorithm could be implemented by keeping track 
 			// of the previous content of the link file.
 			// TODO do the above
-			String linkName = list[i].getLinkFileName();
 			if (linkName != null) {
 				File linkFile = new File(linkName);
 				if (!linkFile.exists()) {
@@ -1045,6 +1451,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 				}
 			}
 		}
+		StartupProfile.record("validateSites", null, start, list.length, -1); //$NON-NLS-1$
 	}
 
 	private void linkInitializedState(Configuration sharedConfig, Location sharedConfigLocation, Location newConfigLocation) {
@@ -1074,6 +1481,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	private Configuration loadConfig(URL url, URL installLocation) throws Exception {
 		if (url == null)
 			throw new IOException(Messages.cfig_unableToLoad_noURL);
+		long start = StartupProfile.start();
 
 		// try to load saved configuration file (watch for failed prior save())
 		ConfigurationParser parser = null;
@@ -1125,6 +1533,10 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			}
 		}
 
+		if (StartupProfile.isRecording()) {
+			long bytes = "file".equals(url.getProtocol()) ? new File(url.getFile()).length() : -1; //$NON-NLS-1$
+			StartupProfile.record("loadConfig", url, start, config.getSites().length, bytes); //$NON-NLS-1$
+		}
 		return config;
 	}
 
@@ -1241,6 +1653,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 	}
 
 	private void reconcile() throws CoreException {
+		long start = StartupProfile.start();
 		long lastChange = config.getDate().getTime();
 		SiteEntry[] sites = config.getSites();
 		for (int s = 0; s < sites.length; s++) {
@@ -1251,6 +1664,7 @@ public class PlatformConfiguration implements IPlatformConfiguration, IConfigura
 			}
 		}
 		config.setDirty(true);
+		StartupProfile.record("reconcile", null, start, sites.length, -1); //$NON-NLS-1$
 	}
 
 	public Configuration getConfiguration() {
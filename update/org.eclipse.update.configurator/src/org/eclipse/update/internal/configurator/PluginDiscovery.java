@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.internal.configurator;
+
+import java.io.IOException;
+
+/**
+ * Watches the plugins directories of the configured sites while the platform runs.
+ * <p>
+ * Every <code>org.eclipse.update.discovery.interval</code> milliseconds the
+ * sites are checked for plugins added or removed since the last check. When
+ * some changed, the configuration is saved and only the affected bundles are
+ * installed or uninstalled, with a single package refresh.
+ * </p>
+ * <p>
+ * Discovery is off unless the interval is set.
+ * </p>
+ */
+class PluginDiscovery extends Thread {
+
+	static final String DISCOVERY_INTERVAL = "org.eclipse.update.discovery.interval"; //$NON-NLS-1$
+	// plugins modified more recently may still be being copied
+	private static final long SETTLE_TIME = 1000;
+	private static final long SHUTDOWN_TIMEOUT = 5000;
+
+	private ConfigurationActivator configurator;
+	private PlatformConfiguration configuration;
+	private long interval;
+	private volatile boolean running = true;
+
+	PluginDiscovery(ConfigurationActivator configurator, PlatformConfiguration configuration, long interval) {
+		super("Update Configurator Plug-in Discovery"); //$NON-NLS-1$
+		this.configurator = configurator;
+		this.configuration = configuration;
+		this.interval = interval;
+		setDaemon(true);
+	}
+
+	/**
+	 * Returns the discovery interval set in the property, 0 if discovery is off
+	 */
+	static long getInterval(String property) {
+		if (property == null)
+			return 0;
+		try {
+			return Math.max(0, Long.parseLong(property.trim()));
+		} catch (NumberFormatException e) {
+			Utils.log("Invalid " + DISCOVERY_INTERVAL + ": " + property); //$NON-NLS-1$ //$NON-NLS-2$
+			return 0;
+		}
+	}
+
+	public void run() {
+		while (running) {
+			try {
+				sleep(interval);
+			} catch (InterruptedException e) {
+				continue;
+			}
+			if (!running)
+				break;
+			try {
+				discover();
+			} catch (RuntimeException e) {
+				Utils.log(Utils.newStatus("Plug-in discovery failed", e)); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Stops watching, waits a bounded time for changes being applied
+	 */
+	void shutdown() {
+		running = false;
+		interrupt();
+		try {
+			join(SHUTDOWN_TIMEOUT);
+		} catch (InterruptedException e) {
+			// stop anyway
+		}
+	}
+
+	private void discover() {
+		long start = System.currentTimeMillis();
+		SiteEntry[] sites = configuration.getConfiguration().getSites();
+		boolean changed = false;
+		for (int i = 0; i < sites.length; i++) {
+			if (sites[i].isEnabled() && sites[i].isUpdateable() && sites[i].detectPluginChanges(SETTLE_TIME))
+				changed = true;
+		}
+		if (!changed)
+			return;
+
+		if (!configuration.isTransient()) {
+			try {
+				configuration.save();
+			} catch (IOException e) {
+				// the changes are detected again on next startup
+				Utils.debug("Unable to save configuration " + e.toString()); //$NON-NLS-1$
+			}
+		}
+		configurator.installBundles();
+		Utils.debug("Applied plug-in changes in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -17,6 +17,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.zip.*;
@@ -38,11 +39,14 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 	private ISitePolicy policy;
 	private boolean updateable = true;
 	private Map featureEntries;
-	private ArrayList pluginEntries;
+	// accessed under the site lock, volatile as the plugin discovery replaces it from its own thread
+	private volatile ArrayList pluginEntries;
 	private long changeStamp;
 	private long featuresChangeStamp;
 	private long pluginsChangeStamp;
+	private long pluginsDirStamp; // last modified time of the plugins directory when it was last checked for changes
 	private String linkFileName;
+	private volatile boolean siteRootMissing; // the detection found no site root
 	private boolean enabled = true;
 	private Configuration config;
 	
@@ -76,6 +80,8 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 			this.url = url;
 		
 		this.policy = policy;
+		if (policy instanceof SitePolicy)
+			((SitePolicy) policy).setSite(this);
 		this.resolvedURL = this.url;
 	}
 
@@ -122,6 +128,9 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		if (policy == null)
 			throw new IllegalArgumentException();
 		this.policy = policy;
+		if (policy instanceof SitePolicy)
+			((SitePolicy) policy).setSite(this);
+		changed();
 	}
 
 	/*
@@ -169,15 +178,14 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		// We detect all the plugins on the site, but it would be faster
 		// to just lookup the plugins that correspond to the entries found in each feature.
 		// TODO fix the above
-		if (pluginEntries == null)
-			detectPlugins();
+		PluginEntry[] allPlugins = getAllPluginEntries();
 		if (featureEntries == null)
 			detectFeatures();
 		
 		// cache all the plugin entries for faster lookup later
-		Map cachedPlugins = new HashMap(pluginEntries.size());
-		for (int i=0; i<pluginEntries.size(); i++) {
-			PluginEntry p = (PluginEntry)pluginEntries.get(i);
+		Map cachedPlugins = new HashMap(allPlugins.length);
+		for (int i=0; i<allPlugins.length; i++) {
+			PluginEntry p = allPlugins[i];
 			cachedPlugins.put(p.getVersionedIdentifier(), p);
 		}
 		
@@ -203,12 +211,11 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		for (int i=0; i<pluginURLs.length; i++)
 			map.put(pluginURLs[i], pluginURLs[i]);
 		
-		if (pluginEntries == null)
-				detectPlugins();
+		PluginEntry[] allPlugins = getAllPluginEntries();
 		
 		ArrayList plugins = new ArrayList(pluginURLs.length);
-		for (int i=0; i<pluginEntries.size(); i++) {
-			PluginEntry p = (PluginEntry)pluginEntries.get(i);
+		for (int i=0; i<allPlugins.length; i++) {
+			PluginEntry p = allPlugins[i];
 			if (map.containsKey(p.getURL()))
 				plugins.add(p);
 		}
@@ -269,6 +276,9 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 	 * and validates existing features (they might have been removed)
 	 */
 	private void detectFeatures() {
+		long start = StartupProfile.start();
+		boolean profiling = StartupProfile.isRecording();
+		long bytes = profiling ? 0 : -1;
 
 		if (featureEntries != null)
 			validateFeatureEntries();
@@ -302,6 +312,8 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 						dirs[index].lastModified() <= featuresChangeStamp)
 						continue;
 					URL featureURL = featureXML.toURL();
+					if (profiling)
+						bytes += featureXML.length();
 					FeatureEntry featureEntry = featureParser.parse(featureURL);
 					if (featureEntry != null)
 						addFeatureEntry(featureEntry);
@@ -312,13 +324,15 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		}
 		
 		Utils.debug(resolvedURL.toString() + " located  " + featureEntries.size() + " feature(s)"); //$NON-NLS-1$ //$NON-NLS-2$
+		StartupProfile.record("detectFeatures", resolvedURL, start, featureEntries.size(), bytes); //$NON-NLS-1$
 	}
 	
 	/**
 	 * Detect new plugins (timestamp > current site timestamp)
 	 * and validates existing plugins (they might have been removed)
 	 */
-	private void detectPlugins() {
+	private synchronized void detectPlugins() {
+		long start = StartupProfile.start();
 		boolean compareTimeStamps = false;
 		if (pluginEntries != null) {
 			validatePluginEntries();
@@ -335,27 +349,32 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		if (pluginsDir.exists() && pluginsDir.isDirectory()) {
 			File[] files = pluginsDir.listFiles();
 			for (int i = 0; i < files.length; i++) {
+				PluginEntry entry = null;
 				if(files[i].isDirectory()){
-					detectUnpackedPlugin(files[i], compareTimeStamps);
+					entry = detectUnpackedPlugin(files[i], compareTimeStamps);
 				}else if(files[i].getName().endsWith(".jar")){ //$NON-NLS-1$
-					detectPackedPlugin(files[i], compareTimeStamps);
+					entry = detectPackedPlugin(files[i], compareTimeStamps);
 				}else{
 					// not bundle file
 				}
+				if (entry != null)
+					addPluginEntry(entry);
 			}
 		} 
 		
 		Utils.debug(resolvedURL.toString() + " located  " + pluginEntries.size() + " plugin(s)"); //$NON-NLS-1$ //$NON-NLS-2$
+		StartupProfile.record("detectPlugins", resolvedURL, start, pluginEntries.size(), -1); //$NON-NLS-1$
 	}
 
 	/**
 	 * @param file a plugin jar
 	 * @param compareTimeStamps set to true when looking for plugins changed since last time they were detected
+	 * @return the plugin entry, or null if the jar is not a plugin or did not change
 	 */
-	private void detectPackedPlugin(File file, boolean compareTimeStamps) {
+	private PluginEntry detectPackedPlugin(File file, boolean compareTimeStamps) {
 		// plugin to run directly from jar
 		if (compareTimeStamps && file.lastModified() <= pluginsChangeStamp) {
-			return;
+			return null;
 		}
 		String entryName = META_MANIFEST_MF;
 		ZipFile z = null;
@@ -370,8 +389,7 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 				BundleManifest manifest = new BundleManifest(bundleManifestIn,
 						pluginURL);
 				if (manifest.exists()) {
-					addPluginEntry(manifest.getPluginEntry());
-					return;
+					return manifest.getPluginEntry();
 				}
 			}
 			// no bundle manifest, check for plugin.xml or fragment.xml
@@ -381,9 +399,8 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 			}
 			if (z.getEntry(entryName) != null) {
 				pluginManifestIn = z.getInputStream(new ZipEntry(entryName));
-				PluginEntry entry1 = pluginParser.parse(pluginManifestIn,
+				return pluginParser.parse(pluginManifestIn,
 						pluginURL);
-				addPluginEntry(entry1);
 			}
 		} catch (IOException e5) {
 			String pluginFileString2 = pluginURL + "!" + entryName; //$NON-NLS-1$
@@ -411,12 +428,14 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 				}
 			}
 		}
+		return null;
 	}
 	/**
 	 * @param file a plugin directory
 	 * @param compareTimeStamps set to true when looking for plugins changed since last time they were detected
+	 * @return the plugin entry, or null if the directory is not a plugin or did not change
 	 */
-	private void detectUnpackedPlugin(File file, boolean compareTimeStamps) {
+	private PluginEntry detectUnpackedPlugin(File file, boolean compareTimeStamps) {
 		// unpacked plugin
 		long dirTimestamp = file.lastModified();
 		File pluginFile = new File(file, META_MANIFEST_MF);
@@ -427,9 +446,8 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 				if (compareTimeStamps
 						&& dirTimestamp <= pluginsChangeStamp
 						&& pluginFile.lastModified() <= pluginsChangeStamp)
-					return;
-				PluginEntry entry = bundleManifest.getPluginEntry();
-				addPluginEntry(entry);
+					return null;
+				return bundleManifest.getPluginEntry();
 			} else {
 				// no bundle manifest, check for plugin.xml or fragment.xml
 				pluginFile = new File(file, PLUGIN_XML);
@@ -447,9 +465,8 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 					if (compareTimeStamps 
 							&& dirTimestamp <= pluginsChangeStamp
 							&& pluginFile.lastModified() <= pluginsChangeStamp)
-						return;
-					PluginEntry entry = pluginParser.parse(pluginFile);
-					addPluginEntry(entry);
+						return null;
+					return pluginParser.parse(pluginFile);
 				}
 			}
 		} catch (IOException e) {
@@ -462,6 +479,7 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 			String pluginFileString = pluginFile.getAbsolutePath();
 			Utils.log(NLS.bind(Messages.InstalledSiteParser_ErrorParsingFile, (new String[] { pluginFileString })));
         }
+		return null;
 	}
 
 	/**
@@ -533,8 +551,10 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		File pluginsDir = new File(root, PLUGINS);
 		if (!pluginsDir.exists() || !pluginsDir.isDirectory()) {
 			Utils.debug(NLS.bind(Messages.SiteEntry_pluginsDir, (new String[] { pluginsDir.getAbsolutePath() })));
+			siteRootMissing = !root.exists();
 			return 0;
 		}
+		siteRootMissing = false;
 
 		pluginsChangeStamp = pluginsDir.lastModified();
 		return pluginsChangeStamp;
@@ -579,6 +599,13 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		return linkFileName;
 	}
 
+	/*
+	 * Returns true if the last detection of the plugins found no site root
+	 */
+	boolean isSiteRootMissing() {
+		return siteRootMissing;
+	}
+
 	public boolean isExternallyLinkedSite() {
 		return (linkFileName != null && !linkFileName.trim().equals("")); //$NON-NLS-1$
 	}
@@ -590,15 +617,78 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		changeStamp = 0;
 		featureEntries = null;
 		pluginEntries = null;
+		changed();
 	}
 	
-	public void refreshPlugins() {
+	public synchronized void refreshPlugins() {
 		// reset computed values. Will be updated on next access.
 		pluginsChangeStamp = 0;
 		changeStamp = 0;
 		pluginEntries = null;
+		changed();
 	}
 	
+	/**
+	 * Picks up the plugins added to or removed from the plugins directory since
+	 * the last check, without reading the manifests of the other plugins.
+	 * Plugin files modified less than <code>settleTime</code> ago are assumed
+	 * to be still being copied and are left for a later check.
+	 * @return true if the plugins of the site changed
+	 */
+	synchronized boolean detectPluginChanges(long settleTime) {
+		// plugins not detected yet are all detected on the next access
+		if (pluginEntries == null || !PlatformConfiguration.supportsDetection(resolvedURL, config.getInstallURL()))
+			return false;
+		File pluginsDir = new File(resolvedURL.getFile(), PLUGINS);
+		long dirStamp = pluginsDir.lastModified();
+		// adding or removing a plugin changes the directory time stamp
+		if (dirStamp == pluginsDirStamp)
+			return false;
+		pluginsDirStamp = dirStamp;
+
+		HashSet known = new HashSet(pluginEntries.size());
+		for (int i = 0; i < pluginEntries.size(); i++)
+			known.add(((PluginEntry) pluginEntries.get(i)).getURL());
+		HashSet present = new HashSet();
+		ArrayList added = new ArrayList();
+		File[] files = pluginsDir.isDirectory() ? pluginsDir.listFiles() : new File[0];
+		long settled = System.currentTimeMillis() - settleTime;
+		for (int i = 0; i < files.length; i++) {
+			boolean packed = !files[i].isDirectory();
+			if (packed && !files[i].getName().endsWith(".jar")) //$NON-NLS-1$
+				continue;
+			String pluginURL = PLUGINS + "/" + files[i].getName() + (packed ? "" : "/"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			present.add(pluginURL);
+			if (known.contains(pluginURL))
+				continue;
+			if (files[i].lastModified() > settled) {
+				// check the directory again next time
+				pluginsDirStamp = 0;
+				continue;
+			}
+			PluginEntry entry = packed ? detectPackedPlugin(files[i], false) : detectUnpackedPlugin(files[i], false);
+			if (entry != null)
+				added.add(entry);
+		}
+
+		// readers may be iterating over the current list, replace it
+		ArrayList plugins = new ArrayList(pluginEntries.size() + added.size());
+		for (int i = 0; i < pluginEntries.size(); i++) {
+			PluginEntry plugin = (PluginEntry) pluginEntries.get(i);
+			if (present.contains(plugin.getURL()))
+				plugins.add(plugin);
+		}
+		if (plugins.size() == pluginEntries.size() && added.isEmpty())
+			return false;
+		plugins.addAll(added);
+		Utils.debug(resolvedURL.toString() + " plugins changed, " + added.size() + " added, " + (pluginEntries.size() + added.size() - plugins.size()) + " removed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		pluginEntries = plugins;
+		changeStamp = 0;
+		pluginsChangeStamp = 0;
+		changed();
+		return true;
+	}
+
 	public void addFeatureEntry(IFeatureEntry feature) {
 		if (featureEntries == null)
 			featureEntries = new HashMap();
@@ -622,6 +712,7 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		}
 		if (feature instanceof FeatureEntry)
 			((FeatureEntry)feature).setSite(this);
+		changed();
 	}
 	
 	public FeatureEntry[] getFeatureEntries() {
@@ -633,24 +724,26 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 		return (FeatureEntry[])featureEntries.values().toArray(new FeatureEntry[featureEntries.size()]);
 	}
 	
-	public void addPluginEntry(PluginEntry plugin) {
+	public synchronized void addPluginEntry(PluginEntry plugin) {
 		if (pluginEntries == null)
 			pluginEntries = new ArrayList();
 		// Note: we could use the latest version of the same plugin, like we do for features, but we let the runtime figure it out
 		pluginEntries.add(plugin);
+		changed();
 	}
 	
-	public PluginEntry[] getAllPluginEntries() {
+	public synchronized PluginEntry[] getAllPluginEntries() {
 		if (pluginEntries == null)
 			detectPlugins();
 		return (PluginEntry[])pluginEntries.toArray(new PluginEntry[pluginEntries.size()]);
 	}
 	
-	public void loadFromDisk(long lastChange) throws CoreException{
+	public synchronized void loadFromDisk(long lastChange) throws CoreException{
 		featuresChangeStamp = lastChange;
 		pluginsChangeStamp = lastChange;
 		detectFeatures();
 		detectPlugins();
+		changed();
 	}
 	
 	/**
@@ -741,6 +834,7 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 	
 	public void setEnabled(boolean enable) {
 		this.enabled = enable;
+		changed();
 	}
 	
 	public FeatureEntry getFeatureEntry(String id) {
@@ -754,10 +848,27 @@ public class SiteEntry implements IPlatformConfiguration.ISiteEntry, IConfigurat
 	
 	public boolean unconfigureFeatureEntry(IFeatureEntry feature) {
 		FeatureEntry existingFeature = getFeatureEntry(feature.getFeatureIdentifier());
-		if (existingFeature != null)
+		if (existingFeature != null) {
 			featureEntries.remove(existingFeature.getFeatureIdentifier());
+			changed();
+		}
 		return existingFeature != null;
 	}
+
+	/*
+	 * Lets the configuration know the content of the site changed
+	 */
+	private void changed() {
+		if (config != null)
+			config.changed();
+	}
+
+	/*
+	 * Called by the policy of the site when its list changed
+	 */
+	void policyChanged() {
+		changed();
+	}
 	
 	/*
 	 * This is a bit of a hack.
@@ -18,6 +18,7 @@ public class SitePolicy implements IPlatformConfiguration.ISitePolicy {
 
 	private int type;
 	private String[] list;
+	private SiteEntry site; // told when the list changes
 
 	public SitePolicy() {
 	}
@@ -54,6 +55,15 @@ public class SitePolicy implements IPlatformConfiguration.ISitePolicy {
 			this.list = new String[0];
 		else
 			this.list = list;
+		if (site != null)
+			site.policyChanged();
+	}
+
+	/*
+	 * Sets the site using this policy, its plugins depend on the list
+	 */
+	synchronized void setSite(SiteEntry site) {
+		this.site = site;
 	}
 
 }
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.internal.configurator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Timings of the phases of the startup reconciliation.
+ * <p>
+ * When the <code>org.eclipse.update.configurator/debug/profile</code> option is on,
+ * each phase records the item it worked on, the number of entries it handled,
+ * the bytes it read and the time it took. The records are written to
+ * <code>org.eclipse.update/startup.profile</code> in the configuration area
+ * once the configurator started, one tab separated line per record:
+ * <pre>
+ * phase	item	count	bytes	elapsed ms
+ * </pre>
+ * Lines starting with <code>#</code> are comments, a count or byte size that
+ * is not known is left empty. Nothing is recorded once the profile is written.
+ * </p>
+ */
+class StartupProfile {
+
+	static final String PROFILE_FILE = "startup.profile"; //$NON-NLS-1$
+	private static final String SEPARATOR = "\t"; //$NON-NLS-1$
+
+	private static ArrayList records = new ArrayList(); /* of String */
+	private static volatile boolean written;
+
+	/**
+	 * Returns whether the phases are being recorded. Callers check it before
+	 * computing the counts or sizes they record.
+	 */
+	static boolean isRecording() {
+		return ConfigurationActivator.DEBUG_PROFILE && !written;
+	}
+
+	/**
+	 * Returns the start time of a phase, 0 when not profiling
+	 */
+	static long start() {
+		return isRecording() ? System.currentTimeMillis() : 0;
+	}
+
+	/**
+	 * Records a phase started at the given time
+	 * @param phase the name of the phase
+	 * @param item what the phase worked on, a site or a file, or <code>null</code>
+	 * @param count the number of entries handled, -1 if not known
+	 * @param bytes the number of bytes read, -1 if not known
+	 */
+	static void record(String phase, Object item, long start, long count, long bytes) {
+		if (!isRecording())
+			return;
+		long elapsed = System.currentTimeMillis() - start;
+		StringBuffer record = new StringBuffer();
+		record.append(phase).append(SEPARATOR);
+		if (item != null)
+			record.append(item.toString().replace('\t', ' '));
+		record.append(SEPARATOR);
+		if (count >= 0)
+			record.append(count);
+		record.append(SEPARATOR);
+		if (bytes >= 0)
+			record.append(bytes);
+		record.append(SEPARATOR).append(elapsed);
+		synchronized (records) {
+			records.add(record.toString());
+		}
+		Utils.debug("Profile: " + record); //$NON-NLS-1$
+	}
+
+	/**
+	 * Stops recording and forgets the records, when they cannot be written
+	 */
+	static void stop() {
+		synchronized (records) {
+			written = true;
+			records.clear();
+		}
+	}
+
+	/**
+	 * Writes the records to the file and stops recording
+	 */
+	static void write(File file) {
+		if (!isRecording())
+			return;
+		String[] lines;
+		synchronized (records) {
+			written = true;
+			lines = (String[]) records.toArray(new String[records.size()]);
+			records.clear();
+		}
+		Writer out = null;
+		try {
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")); //$NON-NLS-1$
+			out.write("# startup profile " + new Date() + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			out.write("# phase" + SEPARATOR + "item" + SEPARATOR + "count" + SEPARATOR + "bytes" + SEPARATOR + "elapsed ms\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			for (int i = 0; i < lines.length; i++)
+				out.write(lines[i] + "\n"); //$NON-NLS-1$
+		} catch (IOException e) {
+			Utils.debug("Unable to write startup profile " + file + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			if (out != null)
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+		}
+	}
+}
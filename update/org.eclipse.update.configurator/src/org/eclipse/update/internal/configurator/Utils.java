@@ -49,6 +49,7 @@ public class Utils {
 	public static boolean isWindows = System.getProperty("os.name").startsWith("Win"); //$NON-NLS-1$ //$NON-NLS-2$	
 	static FrameworkLog log;
 	private static ServiceTracker bundleTracker;
+	private static volatile BundleCache bundleCache;
 	private static ServiceTracker instanceLocation;
 	private static ServiceTracker configurationLocation;
 
@@ -118,6 +119,12 @@ public class Utils {
 	 * Close the services that we were listening to.
 	 */
 	/*package*/ static synchronized void shutdown() {
+		if (bundleCache != null) {
+			BundleContext context = getContext();
+			if (context != null)
+				context.removeBundleListener(bundleCache);
+			bundleCache = null;
+		}
 		if (bundleTracker != null) {
 			bundleTracker.close();
 			bundleTracker = null;
@@ -209,24 +216,33 @@ public class Utils {
 	 * 
 	 * @see PackageAdmin#getBundles(String, String)
 	 */
-	public static synchronized Bundle getBundle(String symbolicName) {
+	public static Bundle getBundle(String symbolicName) {
+		BundleCache cache = bundleCache;
+		if (cache == null) {
+			cache = getBundleCache();
+			if (cache == null)
+				return null;
+		}
+		// the cache holds its own tracker, shutdown may clear the fields meanwhile
+		return cache.getBundle(symbolicName);
+	}
+
+	/*
+	 * Creates the bundle cache, it listens to the bundle events until shutdown
+	 */
+	private static synchronized BundleCache getBundleCache() {
 		if (bundleTracker == null) {
 			bundleTracker = new ServiceTracker(getContext(), PackageAdmin.class.getName(), null);
 			bundleTracker.open();
 		}
-		PackageAdmin admin = (PackageAdmin) bundleTracker.getService();
-		if (admin == null)
+		if (bundleTracker.getService() == null)
 			return null;
-		Bundle[] bundles = admin.getBundles(symbolicName, null);
-		if (bundles == null)
-			return null;
-		//Return the first bundle that is not installed or uninstalled
-		for (int i = 0; i < bundles.length; i++) {
-			if ((bundles[i].getState() & (Bundle.INSTALLED | Bundle.UNINSTALLED)) == 0) {
-				return bundles[i];
-			}
+		if (bundleCache == null) {
+			BundleCache cache = new BundleCache(bundleTracker);
+			getContext().addBundleListener(cache);
+			bundleCache = cache;
 		}
-		return null;
+		return bundleCache;
 	}
 
 	/*
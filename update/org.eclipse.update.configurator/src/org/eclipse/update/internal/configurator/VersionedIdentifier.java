@@ -10,15 +10,33 @@
  *******************************************************************************/
 package org.eclipse.update.internal.configurator;
 
+import java.util.HashMap;
+
 import org.osgi.framework.Version;
 
 public class VersionedIdentifier {
+	private static final int MAX_CACHED_VERSIONS = 1024;
+	// the same versions are parsed for many plug-ins and features
+	private static HashMap versions = new HashMap(); /* key=version string value=Version */
 	private String identifier;
 	private Version version;
 
 	public VersionedIdentifier(String id, String version) {
 		this.identifier = id;
-		this.version = Version.parseVersion(version);
+		this.version = parseVersion(version);
+	}
+
+	private static synchronized Version parseVersion(String version) {
+		if (version == null)
+			return Version.emptyVersion;
+		Version parsed = (Version) versions.get(version);
+		if (parsed == null) {
+			parsed = Version.parseVersion(version);
+			if (versions.size() >= MAX_CACHED_VERSIONS)
+				versions.clear();
+			versions.put(version, parsed);
+		}
+		return parsed;
 	}
 
 	public Version getVersion() {
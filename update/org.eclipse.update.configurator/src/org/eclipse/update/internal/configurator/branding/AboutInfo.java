@@ -12,6 +12,7 @@ package org.eclipse.update.internal.configurator.branding;
 
 import java.net.*;
 import java.util.Hashtable;
+import java.util.Properties;
 
 import org.eclipse.core.runtime.*;
 
@@ -93,6 +94,75 @@ public final class AboutInfo {
 		return info;
 	}
 	
+	/**
+	 * Stores the information in the properties, under keys starting with the prefix
+	 */
+	public void store(Properties props, String prefix) {
+		put(props, prefix + "versionId", versionId); //$NON-NLS-1$
+		put(props, prefix + "featureLabel", featurePluginLabel); //$NON-NLS-1$
+		put(props, prefix + "providerName", providerName); //$NON-NLS-1$
+		put(props, prefix + "appName", appName); //$NON-NLS-1$
+		put(props, prefix + "aboutText", aboutText); //$NON-NLS-1$
+		put(props, prefix + "windowImage", windowImageURL); //$NON-NLS-1$
+		if (windowImagesURLs != null) {
+			props.setProperty(prefix + "windowImages", Integer.toString(windowImagesURLs.length)); //$NON-NLS-1$
+			for (int i = 0; i < windowImagesURLs.length; i++)
+				put(props, prefix + "windowImages." + i, windowImagesURLs[i]); //$NON-NLS-1$
+		}
+		put(props, prefix + "aboutImage", aboutImageURL); //$NON-NLS-1$
+		put(props, prefix + "featureImage", featureImageURL); //$NON-NLS-1$
+		put(props, prefix + "welcomePage", welcomePageURL); //$NON-NLS-1$
+		put(props, prefix + "welcomePerspective", welcomePerspective); //$NON-NLS-1$
+		put(props, prefix + "tipsAndTricksHref", tipsAndTricksHref); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the information stored in the properties under keys starting with the prefix,
+	 * or <code>null</code> if it cannot be restored
+	 */
+	public static AboutInfo load(Properties props, String prefix, String featureId) {
+		try {
+			AboutInfo info = new AboutInfo(featureId);
+			info.versionId = props.getProperty(prefix + "versionId", ""); //$NON-NLS-1$ //$NON-NLS-2$
+			info.featurePluginLabel = props.getProperty(prefix + "featureLabel"); //$NON-NLS-1$
+			info.providerName = props.getProperty(prefix + "providerName"); //$NON-NLS-1$
+			info.appName = props.getProperty(prefix + "appName"); //$NON-NLS-1$
+			info.aboutText = props.getProperty(prefix + "aboutText"); //$NON-NLS-1$
+			info.windowImageURL = getURL(props, prefix + "windowImage"); //$NON-NLS-1$
+			String windowImages = props.getProperty(prefix + "windowImages"); //$NON-NLS-1$
+			if (windowImages != null) {
+				info.windowImagesURLs = new URL[Integer.parseInt(windowImages)];
+				for (int i = 0; i < info.windowImagesURLs.length; i++)
+					info.windowImagesURLs[i] = getURL(props, prefix + "windowImages." + i); //$NON-NLS-1$
+			}
+			info.aboutImageURL = getURL(props, prefix + "aboutImage"); //$NON-NLS-1$
+			info.featureImageURL = getURL(props, prefix + "featureImage"); //$NON-NLS-1$
+			info.welcomePageURL = getURL(props, prefix + "welcomePage"); //$NON-NLS-1$
+			info.welcomePerspective = props.getProperty(prefix + "welcomePerspective"); //$NON-NLS-1$
+			info.tipsAndTricksHref = props.getProperty(prefix + "tipsAndTricksHref"); //$NON-NLS-1$
+			return info;
+		} catch (NumberFormatException e) {
+			return null;
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	private static void put(Properties props, String key, String value) {
+		if (value != null)
+			props.setProperty(key, value);
+	}
+
+	private static void put(Properties props, String key, URL value) {
+		if (value != null)
+			props.setProperty(key, value.toExternalForm());
+	}
+
+	private static URL getURL(Properties props, String key) throws MalformedURLException {
+		String value = props.getProperty(key);
+		return value == null ? null : new URL(value);
+	}
+
 	/**
 	 * Returns the URL for an image which can be shown in an "about" dialog 
 	 * for this product. Products designed to run "headless" typically would not 
@@ -313,6 +313,7 @@ public class Feature extends FeatureModel implements IFeature {
 		IFeatureContentConsumer consumer = null;
 		IPluginEntry[] targetSitePluginEntries = null;
 		ArrayList justInstalledPlugins = new ArrayList();
+		boolean logOpened = false;
 
 		try {
 			// determine list of plugins to install
@@ -357,6 +358,7 @@ public class Feature extends FeatureModel implements IFeature {
 
 			// start log
 			recoveryLog.open(ErrorRecoveryLog.START_INSTALL_LOG);
+			logOpened = true;
 
 			// Start the installation tasks			
 			handler.installInitiated();
@@ -540,6 +542,10 @@ public class Feature extends FeatureModel implements IFeature {
 						consumer.abort();
 					}
 				}
+				// the abort cleaned up, close the log so the buffered
+				// records are written and it is not replayed at startup
+				if (!success && logOpened)
+					recoveryLog.close(ErrorRecoveryLog.END_INSTALL_LOG);
 				handler.installCompleted(success);
 				// if abort is done, no need for the log to stay
 				recoveryLog.delete();
@@ -190,167 +190,177 @@ public abstract class FeatureContentProvider implements IFeatureContentProvider
 		// is still copying into it
 		File localFile = null;
 		FileFragment localFileFragment = null;
-		Object keyLock = LockManager.getLock(key);
-		synchronized (keyLock) {
-			localFile = Utilities.lookupLocalFile(key);
-			if (localFile != null) {
-				// check if the cached file is still valid (no newer version on
-				// server)
-				try {
-				if (UpdateManagerUtils.isSameTimestamp(ref.asURL(), localFile.lastModified()))
+		LockManager.Lock keyLock = LockManager.getLock(key);
+		try {
+			synchronized (keyLock) {
+				// another thread downloaded the file while we were waiting,
+				// no need to check the server again
+				localFile = (File) keyLock.getResult();
+				if (localFile != null && localFile.exists())
 					return ref.createContentReference(ref.getIdentifier(), localFile);
-				} catch(FatalIOException e) {
-					throw e;
-				} catch(IOException e) {
-					throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), e);
-				}
-			}
-
-			if (localFile == null) {
-				localFileFragment = UpdateManagerUtils.lookupLocalFileFragment(key);
-			}
-			// 
-			// download the referenced file into local temporary area
-			InputStream is = null;
-			OutputStream os = null;
-			long bytesCopied = 0;
-			long inputLength = 0;
-			boolean success = false;
-			if (monitor != null) {
-				monitor.saveState();
-				monitor.setTaskName(Messages.FeatureContentProvider_Downloading);
-				monitor.subTask(ref.getIdentifier() + " "); //$NON-NLS-1$
-				try {
-					monitor.setTotalCount(ref.getInputSize());
-				} catch (FatalIOException e) {
-					throw e;
-				} catch (IOException e) {
-					throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), e);
-				}
-				monitor.showCopyDetails(true);
-			}
 
-			try {
-				//long startTime = System.nanoTime();
-				if (localFileFragment != null && "http".equals(ref.asURL().getProtocol())) { //$NON-NLS-1$
-					localFile = localFileFragment.getFile();
+				localFile = Utilities.lookupLocalFile(key);
+				if (localFile != null) {
+					// check if the cached file is still valid (no newer version on
+					// server)
 					try {
-						// get partial input stream
-						is = ref.getPartialInputStream(localFileFragment.getSize());
-						inputLength = ref.getInputSize() - localFileFragment.getSize();
-						// get output stream to append to file fragment
-						os = new BufferedOutputStream(
-						// PAL foundation
-								//new FileOutputStream(localFile, true));
-								new FileOutputStream(localFile.getPath(), true));
-					} catch (FatalIOException e) {
+					if (UpdateManagerUtils.isSameTimestamp(ref.asURL(), localFile.lastModified()))
+						return ref.createContentReference(ref.getIdentifier(), localFile);
+					} catch(FatalIOException e) {
 						throw e;
-					} catch (IOException e) {
-						try {
-							if (is != null)
-								is.close();
-						} catch (IOException ioe) {
-						}
-						is = null;
-						os = null;
-						localFileFragment = null;
+					} catch(IOException e) {
 						throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), e);
 					}
 				}
-				if (is == null) {
-					// must download from scratch
-					localFile = Utilities.createLocalFile(getWorkingDirectory(), null);
+
+				if (localFile == null) {
+					localFileFragment = UpdateManagerUtils.lookupLocalFileFragment(key);
+				}
+				// 
+				// download the referenced file into local temporary area
+				InputStream is = null;
+				OutputStream os = null;
+				long bytesCopied = 0;
+				long inputLength = 0;
+				boolean success = false;
+				if (monitor != null) {
+					monitor.saveState();
+					monitor.setTaskName(Messages.FeatureContentProvider_Downloading);
+					monitor.subTask(ref.getIdentifier() + " "); //$NON-NLS-1$
 					try {
-						is = ref.getInputStream();
-						inputLength = ref.getInputSize();
+						monitor.setTotalCount(ref.getInputSize());
 					} catch (FatalIOException e) {
-						throw Utilities.newCoreException(NLS.bind(Messages.FeatureContentProvider_UnableToRetrieve, (new Object[] {ref})), e);
+						throw e;
 					} catch (IOException e) {
 						throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), e);
 					}
+					monitor.showCopyDetails(true);
+				}
 
-					try {
-						os = new BufferedOutputStream(new FileOutputStream(localFile));
-					} catch (FileNotFoundException e) {
-						throw Utilities.newCoreException(NLS.bind(Messages.FeatureContentProvider_UnableToCreate, (new Object[] {localFile})), e);
+				try {
+					//long startTime = System.nanoTime();
+					if (localFileFragment != null && "http".equals(ref.asURL().getProtocol())) { //$NON-NLS-1$
+						localFile = localFileFragment.getFile();
+						try {
+							// get partial input stream
+							is = ref.getPartialInputStream(localFileFragment.getSize());
+							inputLength = ref.getInputSize() - localFileFragment.getSize();
+							// get output stream to append to file fragment
+							os = new BufferedOutputStream(
+							// PAL foundation
+									//new FileOutputStream(localFile, true));
+									new FileOutputStream(localFile.getPath(), true));
+						} catch (FatalIOException e) {
+							throw e;
+						} catch (IOException e) {
+							try {
+								if (is != null)
+									is.close();
+							} catch (IOException ioe) {
+							}
+							is = null;
+							os = null;
+							localFileFragment = null;
+							throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), e);
+						}
 					}
-				}
+					if (is == null) {
+						// must download from scratch
+						localFile = Utilities.createLocalFile(getWorkingDirectory(), null);
+						try {
+							is = ref.getInputStream();
+							inputLength = ref.getInputSize();
+						} catch (FatalIOException e) {
+							throw Utilities.newCoreException(NLS.bind(Messages.FeatureContentProvider_UnableToRetrieve, (new Object[] {ref})), e);
+						} catch (IOException e) {
+							throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), e);
+						}
 
-				Date start = new Date();
-				if (localFileFragment != null) {
-					bytesCopied = localFileFragment.getSize();
-					if (monitor != null) {
-						monitor.setCopyCount(bytesCopied);
+						try {
+							os = new BufferedOutputStream(new FileOutputStream(localFile));
+						} catch (FileNotFoundException e) {
+							throw Utilities.newCoreException(NLS.bind(Messages.FeatureContentProvider_UnableToCreate, (new Object[] {localFile})), e);
+						}
 					}
-				}
 
-				// Transfer as many bytes as possible from input to output stream
-				long offset = UpdateManagerUtils.copy(is, os, monitor, inputLength);
-				if (offset != -1) {
-					bytesCopied += offset;
-					if (bytesCopied > 0) {
-						// preserve partially downloaded file
-						UpdateManagerUtils.mapLocalFileFragment(key, new FileFragment(localFile, bytesCopied));
+					Date start = new Date();
+					if (localFileFragment != null) {
+						bytesCopied = localFileFragment.getSize();
+						if (monitor != null) {
+							monitor.setCopyCount(bytesCopied);
+						}
 					}
-					if (monitor != null && monitor.isCanceled()) {
-						String msg = Messages.Feature_InstallationCancelled;
-						throw new InstallAbortedException(msg, null);
+
+					// Transfer as many bytes as possible from input to output stream
+					long offset = UpdateManagerUtils.copy(is, os, monitor, inputLength);
+					if (offset != -1) {
+						bytesCopied += offset;
+						if (bytesCopied > 0) {
+							// preserve partially downloaded file
+							UpdateManagerUtils.mapLocalFileFragment(key, new FileFragment(localFile, bytesCopied));
+						}
+						if (monitor != null && monitor.isCanceled()) {
+							String msg = Messages.Feature_InstallationCancelled;
+							throw new InstallAbortedException(msg, null);
+						} else {
+							throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), new IOException());
+						}
 					} else {
-						throw new FeatureDownloadException(NLS.bind(Messages.FeatureContentProvider_ExceptionDownloading, (new Object[] {getURL().toExternalForm()})), new IOException());
+						UpdateManagerUtils.unMapLocalFileFragment(key);
 					}
-				} else {
-					UpdateManagerUtils.unMapLocalFileFragment(key);
-				}
 
-				Date stop = new Date();
-				long timeInseconds = (stop.getTime() - start.getTime()) / 1000;
-				// time in milliseconds /1000 = time in seconds
-				InternalSiteManager.downloaded(
-					ref.getInputSize(),
-					(timeInseconds),
-					ref.asURL());
-
-				success = true;
-				//long endTime = System.nanoTime();
-				// file is downloaded succesfully, map it
-				Utilities.mapLocalFile(key, localFile);
+					Date stop = new Date();
+					long timeInseconds = (stop.getTime() - start.getTime()) / 1000;
+					// time in milliseconds /1000 = time in seconds
+					InternalSiteManager.downloaded(
+						ref.getInputSize(),
+						(timeInseconds),
+						ref.asURL());
+
+					success = true;
+					//long endTime = System.nanoTime();
+					// file is downloaded succesfully, map it
+					Utilities.mapLocalFile(key, localFile);
+					keyLock.setResult(localFile);
 				
-				/*if (ref.asURL().toExternalForm().endsWith("jar")) {
-					synchronized(this.getClass()) {
-						timer += (endTime - startTime);
-						if (first == 0) {
-							first = endTime - startTime;
+					/*if (ref.asURL().toExternalForm().endsWith("jar")) {
+						synchronized(this.getClass()) {
+							timer += (endTime - startTime);
+							if (first == 0) {
+								first = endTime - startTime;
+							}
+						}
+					}*/
+				} catch (ClassCastException e) {
+					throw Utilities.newCoreException(
+						NLS.bind(Messages.FeatureContentProvider_UnableToCreate, (new Object[] { localFile })),
+						e);
+				} finally {
+					//Do not close IS if user cancel,
+					//closing IS will read the entire Stream until the end
+					if (success && is != null)
+						try {
+							is.close();
+						} catch (IOException e) {
+						}
+					if (os != null)
+						try {
+							os.close(); // should flush buffer stream
+						} catch (IOException e) {
 						}
-					}
-				}*/
-			} catch (ClassCastException e) {
-				throw Utilities.newCoreException(
-					NLS.bind(Messages.FeatureContentProvider_UnableToCreate, (new Object[] { localFile })),
-					e);
-			} finally {
-				//Do not close IS if user cancel,
-				//closing IS will read the entire Stream until the end
-				if (success && is != null)
-					try {
-						is.close();
-					} catch (IOException e) {
-					}
-				if (os != null)
-					try {
-						os.close(); // should flush buffer stream
-					} catch (IOException e) {
-					}
 
-				if (success || bytesCopied > 0) {
-					// set the timestamp on the temp file to match the remote
-					// timestamp
-					localFile.setLastModified(ref.getLastModified());
+					if (success || bytesCopied > 0) {
+						// set the timestamp on the temp file to match the remote
+						// timestamp
+						localFile.setLastModified(ref.getLastModified());
+					}
+					if (monitor != null)
+						monitor.restoreState();
 				}
-				if (monitor != null)
-					monitor.restoreState();
-			}
+			} // end lock
+		} finally {
 			LockManager.returnLock(key);
-		} // end lock
+		}
 		ContentReference reference =
 			ref.createContentReference(ref.getIdentifier(), localFile);
 		
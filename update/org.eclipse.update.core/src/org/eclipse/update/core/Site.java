@@ -13,9 +13,11 @@ package org.eclipse.update.core;
 
 import java.net.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -83,6 +85,11 @@ public class Site extends SiteModel implements ISiteWithMirrors {
 	private ISiteContentProvider siteContentProvider;
 	
 	private Map featureCache = Collections.synchronizedMap(new HashMap()); // key=URLKey value=IFeature
+
+	// reverse index of the plug-ins referenced by the features of the site
+	private Map pluginReferences; // key=plugin VersionedIdentifier value=Set of URLKey
+	private Map indexedFeatures; // key=URLKey of the feature reference value=IFeature
+	private List unindexedReferences; // of ISiteFeatureReference
 	
 	/**
 	 * Constructor for Site
@@ -343,33 +350,14 @@ public class Site extends SiteModel implements ISiteWithMirrors {
 		// get the plugins from the feature
 		IPluginEntry[] entries = feature.getPluginEntries();
 		if (entries != null) {
-			// get all the other plugins from all the other features
-			Set allPluginID = new HashSet();
-			ISiteFeatureReference[] features = getFeatureReferences();
-			if (features != null) {
-				for (int indexFeatures = 0; indexFeatures < features.length; indexFeatures++) {
-					IFeature featureToCompare = null;
-					try {
-						featureToCompare = features[indexFeatures].getFeature(null);
-					} catch (CoreException e) {
-						UpdateCore.warn(null, e);
-					}
-					if (!feature.equals(featureToCompare)) {
-						IPluginEntry[] pluginEntries = features[indexFeatures].getFeature(null).getPluginEntries();
-						if (pluginEntries != null) {
-							for (int indexEntries = 0; indexEntries < pluginEntries.length; indexEntries++) {
-								allPluginID.add(pluginEntries[indexEntries].getVersionedIdentifier());
-							}
-						}
-					}
-				}
-			}
-
-			// create the delta with the plugins that may be still used by other configured or unconfigured feature
+			// keep the plugins that are not used by other configured or unconfigured feature
 			List plugins = new ArrayList();
-			for (int indexPlugins = 0; indexPlugins < entries.length; indexPlugins++) {
-				if (!allPluginID.contains(entries[indexPlugins].getVersionedIdentifier())) {
-					plugins.add(entries[indexPlugins]);
+			synchronized (this) {
+				updatePluginReferences();
+				for (int indexPlugins = 0; indexPlugins < entries.length; indexPlugins++) {
+					if (!isReferencedByOtherFeature(entries[indexPlugins], feature)) {
+						plugins.add(entries[indexPlugins]);
+					}
 				}
 			}
 
@@ -383,6 +371,124 @@ public class Site extends SiteModel implements ISiteWithMirrors {
 		return pluginsToRemove;
 	}
 
+	/*
+	 * Returns true if a feature of the site other than the given one 
+	 * references the plugin 
+	 */
+	private boolean isReferencedByOtherFeature(IPluginEntry entry, IFeature feature) {
+		Set references = (Set) pluginReferences.get(entry.getVersionedIdentifier());
+		if (references == null)
+			return false;
+		Iterator iter = references.iterator();
+		while (iter.hasNext()) {
+			IFeature featureToCompare = (IFeature) indexedFeatures.get(iter.next());
+			if (!feature.equals(featureToCompare))
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Builds the plugin to referencing features index on first use, and then
+	 * only indexes the feature references added since. Each feature of the
+	 * site is resolved once, not on every query.
+	 */
+	private void updatePluginReferences() {
+		if (pluginReferences == null) {
+			pluginReferences = new HashMap();
+			indexedFeatures = new HashMap();
+			unindexedReferences = new ArrayList(Arrays.asList(getFeatureReferences()));
+		}
+		for (int i = 0; i < unindexedReferences.size(); i++) {
+			ISiteFeatureReference ref = (ISiteFeatureReference) unindexedReferences.get(i);
+			if (ref.getURL() == null)
+				continue;
+			IFeature featureToIndex = null;
+			try {
+				featureToIndex = ref.getFeature(null);
+			} catch (CoreException e) {
+				UpdateCore.warn(null, e);
+			}
+			if (featureToIndex == null)
+				continue;
+			URLKey key = new URLKey(ref.getURL());
+			indexedFeatures.put(key, featureToIndex);
+			IPluginEntry[] pluginEntries = featureToIndex.getPluginEntries();
+			if (pluginEntries == null)
+				continue;
+			for (int j = 0; j < pluginEntries.length; j++) {
+				VersionedIdentifier pluginId = pluginEntries[j].getVersionedIdentifier();
+				Set references = (Set) pluginReferences.get(pluginId);
+				if (references == null) {
+					references = new HashSet();
+					pluginReferences.put(pluginId, references);
+				}
+				references.add(key);
+			}
+		}
+		unindexedReferences.clear();
+	}
+
+	/*
+	 * Removes a feature reference from the plugin index
+	 */
+	private synchronized void unindexFeatureReference(FeatureReferenceModel ref) {
+		if (pluginReferences == null)
+			return;
+		if (unindexedReferences.remove(ref) || ref.getURL() == null)
+			return;
+		URLKey key = new URLKey(ref.getURL());
+		IFeature indexedFeature = (IFeature) indexedFeatures.remove(key);
+		if (indexedFeature == null)
+			return;
+		IPluginEntry[] pluginEntries = indexedFeature.getPluginEntries();
+		if (pluginEntries == null)
+			return;
+		for (int i = 0; i < pluginEntries.length; i++) {
+			Set references = (Set) pluginReferences.get(pluginEntries[i].getVersionedIdentifier());
+			if (references != null)
+				references.remove(key);
+		}
+	}
+
+	/**
+	 * Adds a feature reference model to site.
+	 * 
+	 * @see SiteModel#addFeatureReferenceModel(SiteFeatureReferenceModel)
+	 */
+	public void addFeatureReferenceModel(SiteFeatureReferenceModel featureReference) {
+		super.addFeatureReferenceModel(featureReference);
+		synchronized (this) {
+			if (pluginReferences != null)
+				unindexedReferences.add(featureReference);
+		}
+	}
+
+	/**
+	 * Removes a feature reference model from site.
+	 * 
+	 * @see SiteModel#removeFeatureReferenceModel(FeatureReferenceModel)
+	 */
+	public void removeFeatureReferenceModel(FeatureReferenceModel featureReference) {
+		super.removeFeatureReferenceModel(featureReference);
+		unindexFeatureReference(featureReference);
+	}
+
+	/**
+	 * Sets the site feature references.
+	 * 
+	 * @see SiteModel#setFeatureReferenceModels(FeatureReferenceModel[])
+	 */
+	public void setFeatureReferenceModels(FeatureReferenceModel[] featureReferences) {
+		super.setFeatureReferenceModels(featureReferences);
+		synchronized (this) {
+			// rebuilt on next use
+			pluginReferences = null;
+			indexedFeatures = null;
+			unindexedReferences = null;
+		}
+	}
+
 	/**
 	 * Adds a new plug-in entry to this site.
 	 * This implementation always throws UnsupportedOperationException
@@ -526,6 +632,9 @@ public class Site extends SiteModel implements ISiteWithMirrors {
 		IFeature feature = (IFeature) featureCache.get(key);
 		if (feature != null) return feature;
 
+		// the feature is parsed outside of the cache lock, so lookups of other
+		// features are not blocked by a download
+
 		// Create a new one
 		if (type == null || type.equals("")) { //$NON-NLS-1$
 			// ask the Site for the default type
@@ -535,8 +644,14 @@ public class Site extends SiteModel implements ISiteWithMirrors {
 		IFeatureFactory factory = FeatureTypeFactory.getInstance().getFactory(type);
 		feature = factory.createFeature(url, this, monitor);
 		if (feature != null) {
-			// Add the feature to the cache
-			featureCache.put(key, feature);
+			// Add the feature to the cache, unless another thread created it
+			// meanwhile, so all the callers share the same instance
+			synchronized (featureCache) {
+				IFeature cached = (IFeature) featureCache.get(key);
+				if (cached != null)
+					return cached;
+				featureCache.put(key, feature);
+			}
 		}
 		return feature;
 	}
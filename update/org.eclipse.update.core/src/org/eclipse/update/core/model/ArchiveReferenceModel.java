@@ -12,6 +12,7 @@ package org.eclipse.update.core.model;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Map;
 
 /**
  * Site archive model object.
@@ -118,4 +119,9 @@ public class ArchiveReferenceModel extends ModelObject {
 		// resolve local elements
 		url = resolveURL(base, bundleURL, urlString);
 	}
+
+	void internStrings(Map table) {
+		path = intern(table, path);
+		urlString = intern(table, urlString);
+	}
 }
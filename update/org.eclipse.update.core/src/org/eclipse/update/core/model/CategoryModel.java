@@ -13,6 +13,7 @@ package org.eclipse.update.core.model;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Comparator;
+import java.util.Map;
 
 import org.eclipse.update.core.Site;
 
@@ -223,4 +224,8 @@ public class CategoryModel extends ModelObject {
 	protected String getPropertyName() {
 		return Site.SITE_FILE;
 	}	
+
+	void internStrings(Map table) {
+		name = intern(table, name);
+	}
 }
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.update.core.model;
 
+import java.util.Map;
+
 
 /**
  * Content entry model object.
@@ -195,4 +197,11 @@ public abstract class ContentEntryModel extends ModelObject {
 		assertIsWriteable();
 		this.nl = nl;
 	}
+
+	void internStrings(Map table) {
+		os = intern(table, os);
+		ws = intern(table, ws);
+		nl = intern(table, nl);
+		arch = intern(table, arch);
+	}
 }
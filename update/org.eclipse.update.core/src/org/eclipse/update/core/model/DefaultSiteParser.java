@@ -23,8 +23,6 @@ import java.util.StringTokenizer;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
@@ -36,6 +34,7 @@ import org.eclipse.update.core.SiteFeatureReferenceModel;
 import org.eclipse.update.core.URLEntry;
 import org.eclipse.update.internal.core.ExtendedSite;
 import org.eclipse.update.internal.core.Messages;
+import org.eclipse.update.internal.core.SAXParserPool;
 import org.eclipse.update.internal.core.UpdateCore;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -68,10 +67,6 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class DefaultSiteParser extends DefaultHandler {
 	
-	private final static SAXParserFactory parserFactory =
-		SAXParserFactory.newInstance();
-	
-	private SAXParser parser;
 	private SiteModelFactory factory;
 
 	private MultiStatus status;
@@ -116,14 +111,6 @@ public class DefaultSiteParser extends DefaultHandler {
 	 */
 	public DefaultSiteParser() {
 		super();
-		try {
-			parserFactory.setNamespaceAware(true);
-			this.parser = parserFactory.newSAXParser();
-		} catch (ParserConfigurationException e) {
-			UpdateCore.log(e);
-		} catch (SAXException e) {
-			UpdateCore.log(e);
-		}
 
 		if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_PARSING)
 			debug("Created"); //$NON-NLS-1$
@@ -151,7 +138,7 @@ public class DefaultSiteParser extends DefaultHandler {
 	public SiteModel parse(InputStream in) throws SAXException, IOException {
 		stateStack.push(new Integer(STATE_INITIAL));
 		currentState = ((Integer) stateStack.peek()).intValue();
-		parser.parse(new InputSource(in), this);
+		SAXParserPool.parse(new InputSource(in), this);
 		if (objectStack.isEmpty())
 			throw new SAXException(Messages.DefaultSiteParser_NoSiteTag);	
 		else {
@@ -17,8 +17,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.update.core.IIncludedFeatureReference;
 import org.eclipse.update.core.IncludedFeatureReference;
@@ -861,6 +863,31 @@ public class FeatureModel extends ModelObject {
 		markListReferenceReadOnly(getImportModels());
 		markListReferenceReadOnly(getPluginEntryModels());
 		markListReferenceReadOnly(getNonPluginEntryModels());
+
+		// the model no longer changes, trim its lists and share its strings
+		discoverySiteInfo = compactList(discoverySiteInfo);
+		imports = compactList(imports);
+		pluginEntries = compactList(pluginEntries);
+		featureIncludes = compactList(featureIncludes);
+		nonPluginEntries = compactList(nonPluginEntries);
+		internStrings(new HashMap());
+	}
+
+	void internStrings(Map table) {
+		featureId = intern(table, featureId);
+		featureVersion = intern(table, featureVersion);
+		provider = intern(table, provider);
+		os = intern(table, os);
+		ws = intern(table, ws);
+		nl = intern(table, nl);
+		arch = intern(table, arch);
+		primaryPluginID = intern(table, primaryPluginID);
+		application = intern(table, application);
+		affinity = intern(table, affinity);
+		internListStrings(table, imports);
+		internListStrings(table, pluginEntries);
+		internListStrings(table, featureIncludes);
+		internListStrings(table, nonPluginEntries);
 	}
 
 	/**
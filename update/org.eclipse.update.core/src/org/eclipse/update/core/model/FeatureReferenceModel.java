@@ -13,6 +13,7 @@ package org.eclipse.update.core.model;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Map;
 
 import org.eclipse.update.core.Site;
 import org.eclipse.update.internal.core.UpdateCore;
@@ -424,4 +425,15 @@ public class FeatureReferenceModel extends ModelObject {
 		this.patch = patch;
 	}
 
+	void internStrings(Map table) {
+		type = intern(table, type);
+		urlString = intern(table, urlString);
+		featureId = intern(table, featureId);
+		featureVersion = intern(table, featureVersion);
+		os = intern(table, os);
+		ws = intern(table, ws);
+		nl = intern(table, nl);
+		arch = intern(table, arch);
+		patch = intern(table, patch);
+	}
 }
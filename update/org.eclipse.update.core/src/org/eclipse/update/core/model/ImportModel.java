@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.update.core.model;
 
+import java.util.Map;
+
 /**
  * Plug-in dependency model object.
  * <p>
@@ -277,4 +279,14 @@ public class ImportModel extends ModelObject {
 		this.nl = nl;
 	}
 
+	void internStrings(Map table) {
+		id = intern(table, id);
+		version = intern(table, version);
+		matchingIdRuleName = intern(table, matchingIdRuleName);
+		matchingRuleName = intern(table, matchingRuleName);
+		osArch = intern(table, osArch);
+		ws = intern(table, ws);
+		os = intern(table, os);
+		nl = intern(table, nl);
+	}
 }
@@ -14,6 +14,7 @@ import java.lang.reflect.Array;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -97,6 +98,47 @@ public abstract class ModelObject extends PlatformObject {
 		return readOnly;
 	}
 
+	/*
+	 * Replaces the strings of the model with the equal strings of the table,
+	 * so a model graph shares one instance of each repeated string.
+	 * Called on read-only models, subclasses holding strings extend it.
+	 */
+	void internStrings(Map table) {
+	}
+
+	/*
+	 * Returns the string of the table equal to the value, adding it if needed
+	 */
+	static String intern(Map table, String value) {
+		if (value == null)
+			return null;
+		String interned = (String) table.get(value);
+		if (interned != null)
+			return interned;
+		table.put(value, value);
+		return value;
+	}
+
+	/*
+	 * Interns the strings of the models of the list
+	 */
+	static void internListStrings(Map table, List list) {
+		if (list == null)
+			return;
+		for (int i = 0; i < list.size(); i++)
+			((ModelObject) list.get(i)).internStrings(table);
+	}
+
+	/*
+	 * Returns a fixed size list backed by an array of the element type, for
+	 * a read-only model. Adding to or removing from it is not supported.
+	 */
+	List compactList(List list) {
+		if (list == null || list.size() == 0)
+			return list;
+		return Arrays.asList(list.toArray(arrayTypeFor(list)));
+	}
+
 	/**
 	 * Delegate setting of read-only
 	 *
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.update.core.model;
 
+import java.util.Map;
+
 
 /**
  * Plug-in entry model object.
@@ -162,4 +164,9 @@ public class PluginEntryModel extends ContentEntryModel {
 		return msg;
 	}
 
+	void internStrings(Map table) {
+		super.internStrings(table);
+		pluginId = intern(table, pluginId);
+		pluginVersion = intern(table, pluginVersion);
+	}
 }
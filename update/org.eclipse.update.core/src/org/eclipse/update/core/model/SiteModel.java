@@ -14,7 +14,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -353,6 +356,23 @@ public class SiteModel extends ModelObject {
 		markListReferenceReadOnly(getFeatureReferenceModels());
 		markListReferenceReadOnly(getArchiveReferenceModels());
 		markListReferenceReadOnly(getCategoryModels());
+
+		// the model no longer changes, trim its lists and share the strings
+		// repeated across its features in a table of the site
+		featureReferences = compactList(featureReferences);
+		archiveReferences = compactList(archiveReferences);
+		mirrors = compactList(mirrors);
+		internStrings(new HashMap());
+	}
+
+	void internStrings(Map table) {
+		type = intern(table, type);
+		internListStrings(table, featureReferences);
+		internListStrings(table, archiveReferences);
+		if (categories != null) {
+			for (Iterator iter = categories.iterator(); iter.hasNext();)
+				((ModelObject) iter.next()).internStrings(table);
+		}
 	}
 
 	/**
@@ -39,8 +39,6 @@ import org.xml.sax.SAXException;
  * This API will be deleted in a future release. See bug 311590 for details.
  */
 public class SiteModelFactory {
-	
-	private static DefaultSiteParser parser = new DefaultSiteParser();
 
 	/**
 	 * Creates a default site factory.
@@ -78,6 +76,8 @@ public class SiteModelFactory {
 	public SiteModel parseSite(InputStream stream)
 		throws CoreException, InvalidSiteTypeException {
 		SiteModel result = null;
+		// parsers are cheap, the SAX parser they use is pooled
+		DefaultSiteParser parser = new DefaultSiteParser();
 		try {
 			parser.init(this);
 			result = parser.parse(stream);
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.update.internal.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+
+/**
+ * Binary delta between two versions of a content.
+ * <p>
+ * The delta is a sequence of instructions rebuilding the new content:
+ * copy a range of the old content, or add literal bytes.
+ * <pre>
+ * int   MAGIC
+ * int   length of the new content
+ * ( byte COPY int offset int length | byte ADD int length byte[length] )*
+ * byte  END
+ * </pre>
+ * Matches are found by hashing the blocks of the old content and
+ * rolling the hash over the new content.
+ * </p>
+ */
+public class BinaryDelta {
+
+	private static final int MAGIC = 0x55444c54; // UDLT
+	private static final byte END = 0;
+	private static final byte COPY = 1;
+	private static final byte ADD = 2;
+
+	private static final int BLOCK_SIZE = 16;
+	private static final int MAX_CANDIDATES = 8;
+	private static final int PRIME = 31;
+
+	private BinaryDelta() {
+	}
+
+	/**
+	 * Returns the delta rebuilding <code>newContent</code> from <code>oldContent</code>
+	 */
+	public static byte[] create(byte[] oldContent, byte[] newContent) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		create(oldContent, newContent, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes the delta rebuilding <code>newContent</code> from <code>oldContent</code>
+	 */
+	public static void create(byte[] oldContent, byte[] newContent, OutputStream output) throws IOException {
+		DataOutputStream out = new DataOutputStream(output);
+		out.writeInt(MAGIC);
+		out.writeInt(newContent.length);
+
+		// chained hash table of the old blocks
+		int blocks = oldContent.length / BLOCK_SIZE;
+		int tableSize = 1;
+		while (tableSize < blocks * 2)
+			tableSize <<= 1;
+		int[] heads = new int[tableSize];
+		int[] next = new int[Math.max(blocks, 1)];
+		for (int i = 0; i < heads.length; i++)
+			heads[i] = -1;
+		for (int block = 0; block < blocks; block++) {
+			int bucket = bucket(hash(oldContent, block * BLOCK_SIZE), tableSize);
+			next[block] = heads[bucket];
+			heads[bucket] = block;
+		}
+
+		int power = 1;
+		for (int i = 1; i < BLOCK_SIZE; i++)
+			power *= PRIME;
+
+		int literalStart = 0;
+		int position = 0;
+		int h = (newContent.length >= BLOCK_SIZE) ? hash(newContent, 0) : 0;
+		while (position + BLOCK_SIZE <= newContent.length) {
+			int bestOffset = -1;
+			int bestLength = 0;
+			int candidates = 0;
+			for (int block = heads[bucket(h, tableSize)]; block != -1 && candidates < MAX_CANDIDATES; block = next[block], candidates++) {
+				int length = matchLength(oldContent, block * BLOCK_SIZE, newContent, position);
+				if (length > bestLength) {
+					bestLength = length;
+					bestOffset = block * BLOCK_SIZE;
+				}
+			}
+
+			if (bestLength < BLOCK_SIZE) {
+				// roll the hash one byte further
+				if (position + BLOCK_SIZE < newContent.length)
+					h = (h - (newContent[position] & 0xff) * power) * PRIME + (newContent[position + BLOCK_SIZE] & 0xff);
+				position++;
+				continue;
+			}
+
+			// extend the match backwards over the pending literal
+			while (position > literalStart && bestOffset > 0 && oldContent[bestOffset - 1] == newContent[position - 1]) {
+				position--;
+				bestOffset--;
+				bestLength++;
+			}
+			writeAdd(out, newContent, literalStart, position - literalStart);
+			out.writeByte(COPY);
+			out.writeInt(bestOffset);
+			out.writeInt(bestLength);
+
+			position += bestLength;
+			literalStart = position;
+			if (position + BLOCK_SIZE <= newContent.length)
+				h = hash(newContent, position);
+		}
+		writeAdd(out, newContent, literalStart, newContent.length - literalStart);
+		out.writeByte(END);
+		out.flush();
+	}
+
+	/**
+	 * Rebuilds the new content from <code>oldContent</code> and the delta
+	 */
+	public static byte[] apply(byte[] oldContent, InputStream delta) throws IOException {
+		DataInputStream in = new DataInputStream(delta);
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not a binary delta"); //$NON-NLS-1$
+		byte[] result = new byte[in.readInt()];
+		int position = 0;
+		while (true) {
+			byte op = in.readByte();
+			if (op == END)
+				break;
+			if (op == COPY) {
+				int offset = in.readInt();
+				int length = in.readInt();
+				if (offset < 0 || length < 0 || offset + length > oldContent.length || position + length > result.length)
+					throw new IOException("Binary delta does not match the old content"); //$NON-NLS-1$
+				System.arraycopy(oldContent, offset, result, position, length);
+				position += length;
+			} else if (op == ADD) {
+				int length = in.readInt();
+				if (length < 0 || position + length > result.length)
+					throw new IOException("Invalid binary delta"); //$NON-NLS-1$
+				in.readFully(result, position, length);
+				position += length;
+			} else {
+				throw new IOException("Invalid binary delta"); //$NON-NLS-1$
+			}
+		}
+		if (position != result.length)
+			throw new IOException("Invalid binary delta"); //$NON-NLS-1$
+		return result;
+	}
+
+	private static void writeAdd(DataOutputStream out, byte[] content, int offset, int length) throws IOException {
+		if (length == 0)
+			return;
+		out.writeByte(ADD);
+		out.writeInt(length);
+		out.write(content, offset, length);
+	}
+
+	private static int hash(byte[] content, int offset) {
+		int h = 0;
+		for (int i = 0; i < BLOCK_SIZE; i++)
+			h = h * PRIME + (content[offset + i] & 0xff);
+		return h;
+	}
+
+	private static int bucket(int h, int tableSize) {
+		return (h ^ (h >>> 16)) & (tableSize - 1);
+	}
+
+	private static int matchLength(byte[] oldContent, int oldOffset, byte[] newContent, int newOffset) {
+		int length = 0;
+		while (oldOffset + length < oldContent.length && newOffset + length < newContent.length && oldContent[oldOffset + length] == newContent[newOffset + length])
+			length++;
+		return length;
+	}
+}
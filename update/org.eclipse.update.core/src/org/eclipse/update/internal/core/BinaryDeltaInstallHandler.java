@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.update.internal.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.update.core.ContentReference;
+import org.eclipse.update.core.IFeatureContentConsumer;
+import org.eclipse.update.core.IPluginEntry;
+import org.eclipse.update.core.PluginEntry;
+import org.eclipse.update.core.Site;
+
+/**
+ * Install handler for plugin jars delivered as a {@link JarDelta}: the new
+ * jar is rebuilt from the installed jar of the old plugin and the delta.
+ * Plugins delivered as whole jars, or unpacked, are overlaid as by
+ * {@link JarDeltaInstallHandler}.
+ * <p>
+ * When the installed jar is not the one the delta was built from, the full
+ * jar is downloaded instead from its default location on the update site,
+ * <code>plugins/&lt;id&gt;_&lt;version&gt;.jar</code>. A site shipping deltas
+ * maps the plugin archives to the delta jars and keeps the full jars there.
+ * </p>
+ */
+public class BinaryDeltaInstallHandler extends JarDeltaInstallHandler {
+
+	protected void overlayPlugin(
+			IPluginEntry oldPlugin,
+			IPluginEntry newPlugin,
+			IFeatureContentConsumer consumer)
+			throws CoreException, IOException {
+
+		File newJarFile = null;
+		if (!(newPlugin instanceof PluginEntry && ((PluginEntry) newPlugin).isUnpack()))
+			newJarFile = getPluginJar(consumer.getFeature().getSite(), newPlugin);
+		if (newJarFile == null || !JarDelta.isDelta(newJarFile)) {
+			super.overlayPlugin(oldPlugin, newPlugin, consumer);
+			return;
+		}
+
+		File oldJarFile = getPluginJar(oldFeature.getSite(), oldPlugin);
+		File tempFile = File.createTempFile(newJarFile.getName(), ".tmp", newJarFile.getParentFile()); //$NON-NLS-1$
+		try {
+			if (JarDelta.matches(newJarFile, oldPlugin.getVersionedIdentifier(), oldJarFile))
+				JarDelta.apply(oldPlugin.getVersionedIdentifier(), oldJarFile, newJarFile, tempFile);
+			else
+				downloadFullJar(newPlugin, tempFile);
+			replaceFile(tempFile, newJarFile);
+		} finally {
+			tempFile.delete();
+		}
+	}
+
+	/*
+	 * Downloads the full jar of the plugin from the site of the feature being installed
+	 */
+	private void downloadFullJar(IPluginEntry plugin, File target) throws IOException {
+		URL url = new URL(feature.getSite().getURL(), Site.DEFAULT_PLUGIN_PATH + plugin.getVersionedIdentifier().toString() + ".jar"); //$NON-NLS-1$
+		InputStream in = new ContentReference(null, url).getInputStream();
+		try {
+			UpdateManagerUtils.copyToLocal(in, target.getAbsolutePath(), monitor);
+		} finally {
+			in.close();
+		}
+		if (JarDelta.isDelta(target))
+			throw new IOException("No full jar of " + plugin.getVersionedIdentifier() + " at " + url); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -17,6 +17,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Status;
@@ -64,6 +65,8 @@ public class DeltaInstallHandler extends BaseInstallHandler {
 			}
 			
 			IPluginEntry[] oldPlugins = oldFeature.getPluginEntries();
+			ArrayList oldOverlays = new ArrayList();
+			ArrayList newOverlays = new ArrayList();
 			for (int i = 0; i < pluginEntries.length; i++) {
 				IPluginEntry newPlugin = pluginEntries[i];
 				IPluginEntry oldPlugin =
@@ -72,24 +75,47 @@ public class DeltaInstallHandler extends BaseInstallHandler {
 						newPlugin.getVersionedIdentifier().getIdentifier());
 				if (oldPlugin == null)
 					continue;
-				try {
-					overlayPlugin(oldPlugin, newPlugin, consumer);
-				} catch (IOException e) {
-					throw new CoreException(
-						new Status(
-							IStatus.ERROR,
-							UpdateUtils.getPluginId(),
-							1,
-							"", //$NON-NLS-1$
-							e));
-				}
+				oldOverlays.add(oldPlugin);
+				newOverlays.add(newPlugin);
 			}
+			overlayPlugins(
+				(IPluginEntry[]) oldOverlays.toArray(new IPluginEntry[oldOverlays.size()]),
+				(IPluginEntry[]) newOverlays.toArray(new IPluginEntry[newOverlays.size()]),
+				consumer);
 		} finally {
 			//if (contentConsumer != null)
 			//	contentConsumer.close();
 		}
 	}
 
+	/**
+	 * Overlays each old plugin on the new plugin at the same index.
+	 * The plugins are overlaid one after the other.
+	 */
+	protected void overlayPlugins(
+		IPluginEntry[] oldPlugins,
+		IPluginEntry[] newPlugins,
+		IFeatureContentConsumer consumer)
+		throws CoreException {
+		for (int i = 0; i < newPlugins.length; i++) {
+			try {
+				overlayPlugin(oldPlugins[i], newPlugins[i], consumer);
+			} catch (IOException e) {
+				throw newOverlayException(e);
+			}
+		}
+	}
+
+	protected CoreException newOverlayException(IOException e) {
+		return new CoreException(
+			new Status(
+				IStatus.ERROR,
+				UpdateUtils.getPluginId(),
+				1,
+				"", //$NON-NLS-1$
+				e));
+	}
+
 	protected IPluginEntry getPluginEntry(IPluginEntry[] plugins, String id) {
 		for (int i = 0; i < plugins.length; i++)
 			if (plugins[i].getVersionedIdentifier().getIdentifier().equals(id))
@@ -14,10 +14,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.update.core.model.FeatureModelFactory;
 import org.xml.sax.Attributes;
@@ -32,26 +28,13 @@ public class DigestParser extends DefaultHandler {
 	
 	private ArrayList featureModels;
 
-	private SAXParser parser;
-
 	private FeatureModelFactory factory;
 
 	private String location;
 	
-	private final static SAXParserFactory parserFactory =
-		SAXParserFactory.newInstance();
-	
 	public DigestParser() {
 		super();
 		featureParser = new InternalFeatureParser();
-		try {
-			parserFactory.setNamespaceAware(true);
-			this.parser = parserFactory.newSAXParser();
-		} catch (ParserConfigurationException e) {
-			UpdateCore.log(e);
-		} catch (SAXException e) {
-			UpdateCore.log(e);
-		}
 	}
 
 	public void init(FeatureModelFactory factory) {
@@ -84,7 +67,7 @@ public class DigestParser extends DefaultHandler {
 	 */
 	public LiteFeature[] parse(InputStream in) throws SAXException, IOException {
 		
-		parser.parse(new InputSource(in), this);	
+		SAXParserPool.parse(new InputSource(in), this);	
 		return (LiteFeature[])featureModels.toArray( new LiteFeature[featureModels.size()]);
 	}
 
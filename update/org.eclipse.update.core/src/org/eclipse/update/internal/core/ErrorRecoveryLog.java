@@ -22,12 +22,23 @@ import org.eclipse.update.core.Utilities;
 
 /**
  * Manages the error/recover log file
+ * <p>
+ * Each record is written on its own line as the entry type, optionally
+ * followed by a space and the path the entry applies to, and a tab and the
+ * final location the path is renamed to once the operation completes.
+ * Records are buffered and only forced to disk at the points recovery
+ * depends on: when the log is opened, when all files have been downloaded
+ * and the renames are about to start, and when the log is closed.
+ * </p>
  */
 public class ErrorRecoveryLog {
 	private static final String ERROR_RECOVERY_LOG = "error_recovery.log"; //$NON-NLS-1$
-	private static final String LOG_ENTRY_KEY = "LogEntry."; //$NON-NLS-1$
 	private static final String RETURN_CARRIAGE = "\r\n"; //$NON-NLS-1$
 	private static final String END_OF_FILE = "eof=eof"; //$NON-NLS-1$
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+	private static final char PATH_SEPARATOR = ' ';
+	private static final char TARGET_SEPARATOR = '\t';
+	private static final int BUFFER_SIZE = 8192;
 
 	//
 	public static final String START_INSTALL_LOG = 	"START_INSTALL_LOG"; //$NON-NLS-1$
@@ -45,8 +56,8 @@ public class ErrorRecoveryLog {
 	public static final String END_REMOVE_LOG = 		"END_REMOVE_LOG"; //$NON-NLS-1$
 
 	private static ErrorRecoveryLog inst;
-	private FileWriter out;
-	private int index;
+	private FileOutputStream fileOut;
+	private Writer out;
 	private List paths;
 	
 	private boolean open = false;
@@ -120,8 +131,8 @@ public class ErrorRecoveryLog {
 		File logFile = null;		
 		try {
 			logFile = getRecoveryLogFile();
-			out = new FileWriter(logFile);
-			index = 0;
+			fileOut = new FileOutputStream(logFile);
+			out = new OutputStreamWriter(new BufferedOutputStream(fileOut, BUFFER_SIZE), ENCODING);
 			paths=null;
 			open=true;
 			nbOfOpen=0;
@@ -136,44 +147,79 @@ public class ErrorRecoveryLog {
 	}
 
 	/**
-	 * Append the string to the log and flush
+	 * Append the string to the log, the entry is forced to disk
+	 * if it marks a recovery boundary
 	 */
 	public void append(String logEntry) throws CoreException {
-		File logFile = null;
+		write(logEntry, logEntry);
+	}
+
+	/**
+	 * Append the entry and its path to the log
+	 */
+	public void appendPath(String logEntry, String path) throws CoreException {
+		appendPath(logEntry, path, null);
+	}
+
+	/**
+	 * Append the entry, the temporary path and the location the path
+	 * will be renamed to, so an interrupted install can be rolled back
+	 */
+	public void appendPath(String logEntry, String path, String target) throws CoreException {
+		if (path == null)
+			return;
+		StringBuffer buffer = new StringBuffer(logEntry);
+		buffer.append(PATH_SEPARATOR);
+		buffer.append(path);
+		if (target != null) {
+			buffer.append(TARGET_SEPARATOR);
+			buffer.append(target);
+		}
+		write(logEntry, buffer.toString());
+		
+		addPath(path);
+	}
+
+	/*
+	 * Buffers the record and forces the log on recovery boundaries
+	 */
+	private void write(String logEntry, String record) throws CoreException {
 		try {
 			if (!open) {
-				UpdateCore.warn("Internal Error: The Error/Recovery log is not open:"+logEntry);				 //$NON-NLS-1$
+				UpdateCore.warn("Internal Error: The Error/Recovery log is not open:"+record);				 //$NON-NLS-1$
 				return;
 			}
 
-			StringBuffer buffer = new StringBuffer(LOG_ENTRY_KEY);
-			buffer.append(index);
-			buffer.append("="); //$NON-NLS-1$
-			buffer.append(logEntry);
-			buffer.append(RETURN_CARRIAGE);
-
-			out.write(buffer.toString());
-			out.flush();
-			index++;
+			out.write(record);
+			out.write(RETURN_CARRIAGE);
+			if (isCommitPoint(logEntry))
+				force();
 		} catch (IOException e) {
 			throw Utilities.newCoreException(
-				NLS.bind(Messages.UpdateManagerUtils_UnableToLog, (new Object[] { logFile })),
+				NLS.bind(Messages.UpdateManagerUtils_UnableToLog, (new Object[] { getRecoveryLogFile() })),
 				e);
 		}
 	}
 
-	/**
-	 * Append the string to the log and flush
+	/*
+	 * Records that must be on disk before the operation can proceed.
+	 * Renames only start after ALL_FEATURES_INSTALLED and removals
+	 * after END_ABOUT_TO_REMOVE, everything logged before can be
+	 * batched.
 	 */
-	public void appendPath(String logEntry, String path) throws CoreException {
-		if (path == null)
-			return;
-		StringBuffer buffer = new StringBuffer(logEntry);
-		buffer.append(" "); //$NON-NLS-1$
-		buffer.append(path);
-		append(buffer.toString());
-		
-		addPath(path);
+	private boolean isCommitPoint(String logEntry) {
+		return START_INSTALL_LOG.equals(logEntry)
+			|| START_REMOVE_LOG.equals(logEntry)
+			|| ALL_INSTALLED.equals(logEntry)
+			|| END_ABOUT_REMOVE.equals(logEntry);
+	}
+
+	/*
+	 * Writes the buffered records and syncs the file
+	 */
+	private void force() throws IOException {
+		out.flush();
+		fileOut.getFD().sync();
 	}
 
 	/**
@@ -192,16 +238,139 @@ public class ErrorRecoveryLog {
 		if (out != null) {
 			try {
 				out.write(END_OF_FILE);
-				out.flush();
+				force();
 				out.close();
 			} catch (IOException e) { //eat the exception
 			} finally {
 				out = null;
+				fileOut = null;
 				open=false;
 			}
 		}
 	}
 
+	/**
+	 * Returns the records of the log file, in the order they were written.
+	 * Returns an empty array if there is no log file.
+	 */
+	public Record[] readRecords() throws CoreException {
+		File logFile = getRecoveryLogFile();
+		List records = new ArrayList();
+		if (!logFile.exists())
+			return new Record[0];
+		BufferedReader in = null;
+		try {
+			in = new BufferedReader(new InputStreamReader(new FileInputStream(logFile), ENCODING));
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() == 0)
+					continue;
+				records.add(Record.parse(line));
+			}
+		} catch (IOException e) {
+			throw Utilities.newCoreException(
+				NLS.bind(Messages.UpdateManagerUtils_UnableToLog, (new Object[] { logFile })),
+				e);
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+		return (Record[]) records.toArray(new Record[records.size()]);
+	}
+
+	/**
+	 * Returns true if the log file was left behind by an install 
+	 * or remove that did not complete
+	 */
+	public boolean isInterrupted() throws CoreException {
+		if (open)
+			return false;
+		Record[] records = readRecords();
+		return records.length > 0 && !records[records.length - 1].isEndOfFile();
+	}
+
+	/**
+	 * Replays an interrupted log and rolls back what the install
+	 * left on the file system. Temporary files are removed and, if the
+	 * install had started renaming, the renamed files are removed as well
+	 * so the partially installed features and plugins are not picked up.
+	 * An interrupted remove cannot be rolled back, it is only reported.
+	 * The log is then closed so it is not replayed twice.
+	 * 
+	 * @return a multi status, the children are the files that couldn't be removed
+	 */
+	public IStatus rollback() throws CoreException {
+		IStatus mainStatus = createStatus(IStatus.OK, "", null); //$NON-NLS-1$
+		MultiStatus multi = new MultiStatus(mainStatus.getPlugin(), mainStatus.getCode(), "", null); //$NON-NLS-1$
+		if (!isInterrupted())
+			return multi;
+
+		Record[] records = readRecords();
+		if (!START_INSTALL_LOG.equals(records[0].getEntry())) {
+			UpdateCore.warn("Interrupted Error/Recovery log cannot be rolled back:" + records[0].getEntry()); //$NON-NLS-1$
+			markRecovered();
+			return multi;
+		}
+
+		boolean renaming = false;
+		for (int i = 0; i < records.length; i++) {
+			String entry = records[i].getEntry();
+			if (ALL_INSTALLED.equals(entry))
+				renaming = true;
+			else if (END_INSTALL_LOG.equals(entry)) {
+				// the install completed, only the end of file is missing
+				markRecovered();
+				return multi;
+			}
+		}
+
+		// undo in the reverse order of creation
+		for (int i = records.length - 1; i >= 0; i--) {
+			Record record = records[i];
+			if (!record.isCreation())
+				continue;
+			File temporary = new File(record.getPath());
+			if (temporary.exists())
+				multi.addAll(removeFromFileSystem(temporary));
+			if (renaming && record.getTarget() != null) {
+				File target = new File(record.getTarget());
+				if (target.exists())
+					multi.addAll(removeFromFileSystem(target));
+			}
+			UpdateCore.warn("Rolled back Error/Recovery log entry:" + record); //$NON-NLS-1$
+		}
+		markRecovered();
+		return multi;
+	}
+
+	/*
+	 * Terminates a replayed log
+	 */
+	private void markRecovered() throws CoreException {
+		File logFile = getRecoveryLogFile();
+		Writer writer = null;
+		try {
+			writer = new OutputStreamWriter(new FileOutputStream(logFile.getAbsolutePath(), true), ENCODING);
+			writer.write(RETURN_CARRIAGE);
+			writer.write(END_OF_FILE);
+		} catch (IOException e) {
+			throw Utilities.newCoreException(
+				NLS.bind(Messages.UpdateManagerUtils_UnableToLog, (new Object[] { logFile })),
+				e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
 	/**
 	 * Delete the file from the file system
 	 */
@@ -267,4 +436,80 @@ public class ErrorRecoveryLog {
 		return multi;
 	}	
 	
+
+	/**
+	 * A record of the error/recovery log
+	 */
+	public static class Record {
+		private String entry;
+		private String path;
+		private String target;
+
+		private Record(String entry, String path, String target) {
+			this.entry = entry;
+			this.path = path;
+			this.target = target;
+		}
+
+		/*
+		 * Parses a line written by the log
+		 */
+		static Record parse(String line) {
+			int pathIndex = line.indexOf(PATH_SEPARATOR);
+			if (pathIndex == -1)
+				return new Record(line, null, null);
+			String entry = line.substring(0, pathIndex);
+			String path = line.substring(pathIndex + 1);
+			String target = null;
+			int targetIndex = path.indexOf(TARGET_SEPARATOR);
+			if (targetIndex != -1) {
+				target = path.substring(targetIndex + 1);
+				path = path.substring(0, targetIndex);
+			}
+			return new Record(entry, path, target);
+		}
+
+		/**
+		 * Returns the type of the entry
+		 */
+		public String getEntry() {
+			return entry;
+		}
+
+		/**
+		 * Returns the path of the entry or <code>null</code>
+		 */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns the location the path is renamed to or <code>null</code>
+		 */
+		public String getTarget() {
+			return target;
+		}
+
+		/**
+		 * Returns true if the record logs a file created by the install
+		 */
+		public boolean isCreation() {
+			return path != null
+				&& (FEATURE_ENTRY.equals(entry)
+					|| PLUGIN_ENTRY.equals(entry)
+					|| FRAGMENT_ENTRY.equals(entry)
+					|| BUNDLE_MANIFEST_ENTRY.equals(entry)
+					|| BUNDLE_JAR_ENTRY.equals(entry));
+		}
+
+		boolean isEndOfFile() {
+			return END_OF_FILE.equals(entry);
+		}
+
+		public String toString() {
+			if (path == null)
+				return entry;
+			return entry + PATH_SEPARATOR + path + (target == null ? "" : TARGET_SEPARATOR + target); //$NON-NLS-1$
+		}
+	}
 }
@@ -204,87 +204,77 @@ public class FeaturePackagedContentProvider extends FeatureContentProvider {
 		
 		ContentReference packedRef = null;
 		String key = reference.toString();
+		boolean success = false;
 		Object jarLock = LockManager.getLock(key);
-		synchronized (jarLock) {
-			//do we have this jar already?
-			File localFile = Utilities.lookupLocalFile(key);
-			if (localFile != null) {
-				// check if the cached file is still valid (no newer version on server)
-				if (UpdateManagerUtils.isSameTimestamp(reference.asURL(), localFile.lastModified())) {
-					LockManager.returnLock(key);
-					return reference.createContentReference(reference.getIdentifier(), localFile);
+		try {
+			synchronized (jarLock) {
+				//do we have this jar already?
+				File localFile = Utilities.lookupLocalFile(key);
+				if (localFile != null) {
+					// check if the cached file is still valid (no newer version on server)
+					if (UpdateManagerUtils.isSameTimestamp(reference.asURL(), localFile.lastModified())) {
+						return reference.createContentReference(reference.getIdentifier(), localFile);
+					}
 				}
-			}
-
-			try {
-				//don't have jar, check for pack.gz
-				URL packGZURL = new URL(reference.asURL().toExternalForm() + ".pack.gz"); //$NON-NLS-1$
-				packedRef = asLocalReference(new JarContentReference(reference.getIdentifier(), packGZURL), monitor);
-			} catch (IOException e) {
-				//no pack.gz
-			} catch (CoreException e){
-				//no pack.gz
-			}
-		}
-		
-		if (packedRef == null) {
-			//no pack.gz on server, get normal jar
-			ContentReference contentReference = null;
-			try {
-				contentReference = asLocalReference(reference, monitor);
-			}
-			catch (FileNotFoundException e) {
-				contentReference = continueOnErrorOrRethrow(reference.getIdentifier(), e);
-			}
-			catch (IOException e) {
-				contentReference = continueOnErrorOrRethrow(reference.getIdentifier(), e);
-			}
-			catch (CoreException e) {
-				contentReference = continueOnErrorOrRethrow(reference.getIdentifier(), e);
-			}
-			return contentReference;
-		}
-
-		boolean success = false;
-		synchronized (jarLock) {
-			String packed = packedRef.toString();
-			Object packedLock = LockManager.getLock(packed);
-			synchronized (packedLock) {
-				try {
-					File tempFile = packedRef.asFile();
-					long timeStamp = tempFile.lastModified();
 	
-					JarProcessor processor = JarProcessor.getUnpackProcessor(null);
-					processor.setWorkingDirectory(tempFile.getParent());
+				try {
+					//don't have jar, check for pack.gz
+					URL packGZURL = new URL(reference.asURL().toExternalForm() + ".pack.gz"); //$NON-NLS-1$
+					packedRef = asLocalReference(new JarContentReference(reference.getIdentifier(), packGZURL), monitor);
+				} catch (IOException e) {
+					//no pack.gz
+				} catch (CoreException e){
+					//no pack.gz
+				}
+			}
 	
-					File packedFile = new File(tempFile.toString() + Utils.PACKED_SUFFIX);
-					tempFile.renameTo(packedFile);
-					
-					if (monitor != null) {
-						monitor.saveState();
-						monitor.subTask(Messages.JarContentReference_Unpacking + " " + reference.getIdentifier() + Utils.PACKED_SUFFIX);  //$NON-NLS-1$
-						monitor.showCopyDetails(false);
-					}
-					//unpacking the jar will strip the ".pack.gz" and leave us back with the original filename
+			//unpack the pack.gz, if there is none on the server the normal jar is retrieved below
+			if (packedRef != null) {
+				synchronized (jarLock) {
+					String packed = packedRef.toString();
+					Object packedLock = LockManager.getLock(packed);
 					try {
-						processor.processJar(packedFile);
-					} catch (Throwable e) {
-						//something is wrong unpacking
-					}
-	
-					if(tempFile.exists() && tempFile.length() > 0){
-						success = true;
-						tempFile.setLastModified(timeStamp);
-						Utilities.mapLocalFile(key, tempFile);
-						UpdateCore.getPlugin().getUpdateSession().markVisited(reference.asURL());
+						synchronized (packedLock) {
+							try {
+								File tempFile = packedRef.asFile();
+								long timeStamp = tempFile.lastModified();
+				
+								JarProcessor processor = JarProcessor.getUnpackProcessor(null);
+								processor.setWorkingDirectory(tempFile.getParent());
+				
+								File packedFile = new File(tempFile.toString() + Utils.PACKED_SUFFIX);
+								tempFile.renameTo(packedFile);
+								
+								if (monitor != null) {
+									monitor.saveState();
+									monitor.subTask(Messages.JarContentReference_Unpacking + " " + reference.getIdentifier() + Utils.PACKED_SUFFIX);  //$NON-NLS-1$
+									monitor.showCopyDetails(false);
+								}
+								//unpacking the jar will strip the ".pack.gz" and leave us back with the original filename
+								try {
+									processor.processJar(packedFile);
+								} catch (Throwable e) {
+									//something is wrong unpacking
+								}
+				
+								if(tempFile.exists() && tempFile.length() > 0){
+									success = true;
+									tempFile.setLastModified(timeStamp);
+									Utilities.mapLocalFile(key, tempFile);
+									UpdateCore.getPlugin().getUpdateSession().markVisited(reference.asURL());
+								}
+							} finally {
+								if(monitor != null)
+									monitor.restoreState();
+							}
+						}
+					} finally {
+						LockManager.returnLock(packed);
 					}
-				} finally {
-					LockManager.returnLock(packed);
-					LockManager.returnLock(key);
-					if(monitor != null)
-						monitor.restoreState();
 				}
 			}
+		} finally {
+			LockManager.returnLock(key);
 		}
 		if(!success){
 			//Something went wrong with the unpack, get the normal jar.
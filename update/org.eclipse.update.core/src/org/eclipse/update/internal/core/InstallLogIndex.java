@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.update.internal.core;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+
+/**
+ * Sidecar index of the installation log.
+ * <p>
+ * The install log is a sequence of blocks, each one starting with a
+ * <code>!CONFIGURATION &lt;time&gt; &lt;date&gt;</code> line followed by the
+ * activities of that configuration. The index records the byte offset of
+ * each block and the length of the log that has been indexed, so only the
+ * part of the log appended since the last update has to be scanned and
+ * only the blocks of interest have to be read.
+ * </p>
+ * <p>
+ * The index is stored next to the log as <code>install.log.index</code>:
+ * <pre>
+ * !INDEX &lt;version&gt; &lt;indexed length&gt;
+ * &lt;configuration time&gt; &lt;offset&gt;
+ * ...
+ * </pre>
+ * </p>
+ */
+public class InstallLogIndex {
+
+	private static final String INDEX_SUFFIX = ".index"; //$NON-NLS-1$
+	private static final String INDEX_HEADER = "!INDEX"; //$NON-NLS-1$
+	private static final String CONFIGURATION = "!CONFIGURATION"; //$NON-NLS-1$
+	private static final String VERSION = "1"; //$NON-NLS-1$
+	private static final byte[] CONFIGURATION_BYTES = toBytes(CONFIGURATION);
+	private static final int BUFFER_SIZE = 8192;
+
+	private File logFile;
+	private File indexFile;
+	private List blocks = new ArrayList();
+	private long indexedLength = 0;
+
+	/**
+	 * A configuration block of the log
+	 */
+	public static class Block {
+		private long time;
+		private long offset;
+		private long length;
+
+		Block(long time, long offset) {
+			this.time = time;
+			this.offset = offset;
+		}
+
+		/**
+		 * Returns the creation time of the configuration
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * Returns the offset of the block in the log
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Returns the length of the block in bytes
+		 */
+		public long getLength() {
+			return length;
+		}
+	}
+
+	/**
+	 * Creates the index of the given log.
+	 * Call <code>update()</code> to load and refresh it.
+	 */
+	public InstallLogIndex(File logFile) {
+		this.logFile = logFile;
+		this.indexFile = new File(logFile.getParentFile(), logFile.getName() + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Loads the sidecar index and indexes what was appended to the log
+	 * since it was written. The index is rebuilt if the log is shorter
+	 * than the indexed length, as it has been replaced.
+	 */
+	public synchronized void update() throws IOException {
+		if (indexedLength == 0 && blocks.isEmpty())
+			load();
+
+		long logLength = logFile.length();
+		if (logLength < indexedLength)
+			reset();
+		if (logLength == indexedLength)
+			return;
+
+		scan();
+		save();
+	}
+
+	/**
+	 * Drops the index, it is rebuilt from the whole log on the next update
+	 */
+	public synchronized void reset() {
+		blocks.clear();
+		indexedLength = 0;
+		indexFile.delete();
+	}
+
+	/**
+	 * Returns all the configuration blocks of the indexed log
+	 */
+	public synchronized Block[] getBlocks() {
+		return (Block[]) blocks.toArray(new Block[blocks.size()]);
+	}
+
+	/**
+	 * Returns a reader over the content of the block.
+	 * Returns <code>null</code> if the block no longer starts with a
+	 * configuration line, in which case the index is stale.
+	 */
+	public BufferedReader read(Block block) throws IOException {
+		byte[] content = new byte[(int) block.length];
+		RandomAccessFile in = new RandomAccessFile(logFile, "r"); //$NON-NLS-1$
+		try {
+			in.seek(block.offset);
+			in.readFully(content);
+		} catch (EOFException e) {
+			return null;
+		} finally {
+			in.close();
+		}
+		if (!startsWith(content, 0, content.length, CONFIGURATION_BYTES))
+			return null;
+		return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), "UTF-8")); //$NON-NLS-1$
+	}
+
+	/*
+	 * Indexes the log from the indexed length up to its last complete line
+	 */
+	private void scan() throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(logFile), BUFFER_SIZE);
+		try {
+			long skipped = 0;
+			while (skipped < indexedLength) {
+				long n = in.skip(indexedLength - skipped);
+				if (n <= 0)
+					throw new EOFException();
+				skipped += n;
+			}
+
+			long position = indexedLength;
+			long lineStart = position;
+			byte[] line = new byte[256];
+			int lineLength = 0;
+			int b;
+			while ((b = in.read()) != -1) {
+				position++;
+				if (b != '\n') {
+					// only the beginning of the line is needed to find the blocks
+					if (lineLength < line.length)
+						line[lineLength++] = (byte) b;
+					continue;
+				}
+				if (startsWith(line, 0, lineLength, CONFIGURATION_BYTES))
+					addBlock(new String(line, 0, lineLength, "UTF-8"), lineStart); //$NON-NLS-1$
+				lineLength = 0;
+				lineStart = position;
+				indexedLength = position;
+			}
+		} finally {
+			in.close();
+		}
+		computeLengths();
+	}
+
+	/*
+	 * !CONFIGURATION <time> <date>
+	 */
+	private void addBlock(String line, long offset) {
+		StringTokenizer tokens = new StringTokenizer(line);
+		tokens.nextToken();
+		if (!tokens.hasMoreTokens())
+			return;
+		try {
+			blocks.add(new Block(Long.parseLong(tokens.nextToken()), offset));
+		} catch (NumberFormatException e) {
+			// not a configuration we can match, ignore it
+		}
+	}
+
+	/*
+	 * A block ends where the next one starts or at the end of the indexed log
+	 */
+	private void computeLengths() {
+		for (int i = 0; i < blocks.size(); i++) {
+			Block block = (Block) blocks.get(i);
+			long end = (i + 1 < blocks.size()) ? ((Block) blocks.get(i + 1)).offset : indexedLength;
+			block.length = end - block.offset;
+		}
+	}
+
+	/*
+	 * Reads the sidecar file, an invalid index is ignored and rebuilt
+	 */
+	private void load() {
+		if (!indexFile.exists())
+			return;
+		BufferedReader in = null;
+		try {
+			in = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), "UTF-8")); //$NON-NLS-1$
+			StringTokenizer header = new StringTokenizer(in.readLine());
+			if (!INDEX_HEADER.equals(header.nextToken()) || !VERSION.equals(header.nextToken()))
+				return;
+			long length = Long.parseLong(header.nextToken());
+			String line;
+			while ((line = in.readLine()) != null) {
+				StringTokenizer tokens = new StringTokenizer(line);
+				if (!tokens.hasMoreTokens())
+					continue;
+				long time = Long.parseLong(tokens.nextToken());
+				long offset = Long.parseLong(tokens.nextToken());
+				blocks.add(new Block(time, offset));
+			}
+			indexedLength = length;
+			computeLengths();
+		} catch (Exception e) {
+			UpdateCore.warn("Unable to read install log index " + indexFile + ", rebuilding it", e); //$NON-NLS-1$ //$NON-NLS-2$
+			blocks.clear();
+			indexedLength = 0;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/*
+	 * Writes the sidecar file, a failure only costs a rescan next time
+	 */
+	private void save() {
+		Writer out = null;
+		try {
+			out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile), "UTF-8")); //$NON-NLS-1$
+			out.write(INDEX_HEADER + " " + VERSION + " " + indexedLength + "\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			for (int i = 0; i < blocks.size(); i++) {
+				Block block = (Block) blocks.get(i);
+				out.write(block.time + " " + block.offset + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} catch (IOException e) {
+			UpdateCore.warn("Unable to write install log index " + indexFile, e); //$NON-NLS-1$
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	private static boolean startsWith(byte[] bytes, int start, int length, byte[] prefix) {
+		// the writer separates blocks with an empty line, skip leading white space
+		int i = start;
+		while (i < length && (bytes[i] == '\r' || bytes[i] == '\n' || bytes[i] == ' '))
+			i++;
+		if (length - i < prefix.length)
+			return false;
+		for (int j = 0; j < prefix.length; j++) {
+			if (bytes[i + j] != prefix[j])
+				return false;
+		}
+		return true;
+	}
+
+	private static byte[] toBytes(String s) {
+		try {
+			return s.getBytes("UTF-8"); //$NON-NLS-1$
+		} catch (UnsupportedEncodingException e) {
+			return s.getBytes();
+		}
+	}
+}
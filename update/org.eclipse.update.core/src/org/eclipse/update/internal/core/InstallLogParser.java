@@ -15,6 +15,7 @@ import java.io.*;
 import java.net.*;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
@@ -34,6 +35,7 @@ import org.eclipse.update.internal.operations.*;
  */
 public class InstallLogParser {
 	private IPath logPath;
+	private InstallLogIndex logIndex;
 	private BufferedReader buffRead;
 	private InstallConfiguration currentConfiguration;
 	private HashMap installConfigMap;
@@ -58,6 +60,7 @@ public class InstallLogParser {
 	public InstallLogParser(){
 		String loc = ConfiguratorUtils.getCurrentPlatformConfiguration().getConfigurationLocation().getFile();
 		logPath = new Path(loc).removeLastSegments(1).append("install.log");  //$NON-NLS-1$
+		logIndex = new InstallLogIndex(logPath.toFile());
 		installConfigMap = new HashMap();
 		try {
 			InstallConfiguration[] configs = (InstallConfiguration[])SiteManager.getLocalSite().getConfigurationHistory();
@@ -87,7 +90,13 @@ public class InstallLogParser {
 		config.setCreationDate(origConfig.getCreationDate());
 		return config;
 	}
+	/**
+	 * Parses the activities of the configurations in the history.
+	 * Only the blocks of the log for these configurations are read.
+	 */
 	public void parseInstallationLog(){
+		if (parseIndexedLog())
+			return;
 		try {
 			openLog();
 			parseLog();
@@ -97,6 +106,49 @@ public class InstallLogParser {
 			closeLog();
 		}
 	}
+
+	/*
+	 * Reads the blocks of the configurations we know about.
+	 * Returns false if the index could not be used, the whole log
+	 * then has to be parsed. All the blocks are read before any is
+	 * parsed, so no activity is added when it returns false.
+	 */
+	private boolean parseIndexedLog() {
+		if (!logPath.toFile().exists())
+			return false;
+		try {
+			logIndex.update();
+			InstallLogIndex.Block[] blocks = logIndex.getBlocks();
+			ArrayList readers = new ArrayList(); /* of BufferedReader */
+			for (int i = 0; i < blocks.length; i++) {
+				if (!installConfigMap.containsKey(new Long(blocks[i].getTime())))
+					continue;
+				BufferedReader reader = logIndex.read(blocks[i]);
+				if (reader == null) {
+					// the log changed under the index
+					logIndex.reset();
+					return false;
+				}
+				readers.add(reader);
+			}
+			for (int i = 0; i < readers.size(); i++) {
+				buffRead = (BufferedReader) readers.get(i);
+				try {
+					parseLog();
+				} finally {
+					closeLog();
+				}
+			}
+			return true;
+		} catch (IOException e) {
+			UpdateCore.warn("Unable to use the install log index", e); //$NON-NLS-1$
+			logIndex.reset();
+		} catch (CoreException e) {
+			UpdateUtils.logException(e);
+			return true;
+		}
+		return false;
+	}
 	
 	private void openLog() throws CoreException {
 		try {
@@ -16,10 +16,6 @@ import java.io.InputStream;
 import java.util.Iterator;
 import java.util.Stack;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Platform;
@@ -62,7 +58,6 @@ import org.xml.sax.helpers.DefaultHandler;
  */
 public class InternalFeatureParser extends DefaultHandler {
 
-	private SAXParser parser;
 	private FeatureModelFactory factory;
 	private MultiStatus status;
 
@@ -113,8 +108,6 @@ public class InternalFeatureParser extends DefaultHandler {
     private String location;
     private boolean ignoredElement = false;
 	
-	private final static SAXParserFactory parserFactory =
-		SAXParserFactory.newInstance();
 
 	/**
 	 * Constructs a feature parser.
@@ -123,14 +116,6 @@ public class InternalFeatureParser extends DefaultHandler {
 	 */
 	public InternalFeatureParser() {
 		super();
-		try {
-			parserFactory.setNamespaceAware(true);
-			this.parser = parserFactory.newSAXParser();
-		} catch (ParserConfigurationException e) {
-			UpdateCore.log(e);
-		} catch (SAXException e) {
-			UpdateCore.log(e);
-		}
 	}
 
 	public void init(FeatureModelFactory factory) {
@@ -189,7 +174,7 @@ public class InternalFeatureParser extends DefaultHandler {
 	public FeatureModel parse(InputStream in) throws SAXException, IOException {
 		stateStack.push(new Integer(STATE_INITIAL));
 		currentState = ((Integer) stateStack.peek()).intValue();
-		parser.parse(new InputSource(in), this);
+		SAXParserPool.parse(new InputSource(in), this);
 		return getFeatureModel();
 	}
 
@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.update.internal.core;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.update.core.VersionedIdentifier;
+
+
+/**
+ * Delta between two versions of a plugin jar.
+ * <p>
+ * A delta jar lists every entry of the new jar in its index, in order, with
+ * the way to rebuild it. The first line names the plugin jar the delta was
+ * built from, with the size and CRC of that whole jar. The entries taken from
+ * the old jar carry the size and CRC of the old entry:
+ * <pre>
+ * JARDELTA 2 &lt;id&gt; &lt;version&gt; &lt;size&gt; &lt;crc&gt;
+ * K &lt;size&gt; &lt;crc&gt; &lt;name&gt;   the entry is unchanged, it is taken from the old jar
+ * F &lt;name&gt;                 the entry of the delta jar is the new content
+ * D &lt;size&gt; &lt;crc&gt; &lt;name&gt;   the entry of the delta jar is a {@link BinaryDelta} against the old entry
+ * </pre>
+ * Entries of the old jar that are not listed are dropped. Sizes are decimal
+ * and CRCs hexadecimal. A delta is only applied to the jar it was built from,
+ * anything else would silently build a corrupt jar.
+ * </p>
+ */
+public class JarDelta {
+
+	public static final String INDEX_ENTRY = "META-INF/DELTA.INDEX"; //$NON-NLS-1$
+	private static final String HEADER = "JARDELTA 2"; //$NON-NLS-1$
+	private static final char KEEP = 'K';
+	private static final char FULL = 'F';
+	private static final char DELTA = 'D';
+
+	private JarDelta() {
+	}
+
+	/**
+	 * Returns <code>true</code> if the file is a delta jar
+	 */
+	public static boolean isDelta(File file) {
+		if (!file.isFile())
+			return false;
+		ZipFile zip = null;
+		try {
+			zip = new ZipFile(file);
+			return zip.getEntry(INDEX_ENTRY) != null;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			close(zip);
+		}
+	}
+
+	/**
+	 * Writes the delta rebuilding <code>newJarFile</code> from <code>oldJarFile</code>
+	 * to <code>deltaFile</code>
+	 * @param base the plugin of the old jar
+	 */
+	public static void create(VersionedIdentifier base, File oldJarFile, File newJarFile, File deltaFile) throws IOException {
+		ZipFile oldJar = null;
+		ZipFile newJar = null;
+		ZipOutputStream out = null;
+		try {
+			oldJar = new ZipFile(oldJarFile);
+			newJar = new ZipFile(newJarFile);
+			out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(deltaFile)));
+			StringBuffer index = new StringBuffer(HEADER);
+			index.append(' ').append(base.getIdentifier());
+			index.append(' ').append(base.getVersion());
+			index.append(' ').append(oldJarFile.length());
+			index.append(' ').append(Long.toHexString(checksum(oldJarFile))).append('\n');
+
+			for (Enumeration entries = newJar.entries(); entries.hasMoreElements();) {
+				ZipEntry newEntry = (ZipEntry) entries.nextElement();
+				String name = newEntry.getName();
+				ZipEntry oldEntry = oldJar.getEntry(name);
+				byte[] newContent = read(newJar, newEntry);
+				if (oldEntry == null) {
+					index.append(FULL).append(' ').append(name).append('\n');
+					write(out, newEntry, newContent);
+					continue;
+				}
+				byte[] oldContent = read(oldJar, oldEntry);
+				if (Arrays.equals(oldContent, newContent)) {
+					appendOld(index, KEEP, oldContent, name);
+					continue;
+				}
+				byte[] delta = BinaryDelta.create(oldContent, newContent);
+				if (delta.length < newContent.length) {
+					appendOld(index, DELTA, oldContent, name);
+					write(out, newEntry, delta);
+				} else {
+					index.append(FULL).append(' ').append(name).append('\n');
+					write(out, newEntry, newContent);
+				}
+			}
+
+			out.putNextEntry(new ZipEntry(INDEX_ENTRY));
+			Writer writer = new OutputStreamWriter(out, "UTF-8"); //$NON-NLS-1$
+			writer.write(index.toString());
+			writer.flush();
+			out.closeEntry();
+			out.finish();
+		} finally {
+			if (out != null)
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			close(newJar);
+			close(oldJar);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the delta was built from <code>oldJarFile</code>,
+	 * the jar of the <code>base</code> plugin
+	 */
+	public static boolean matches(File deltaFile, VersionedIdentifier base, File oldJarFile) {
+		ZipFile oldJar = null;
+		ZipFile delta = null;
+		try {
+			oldJar = new ZipFile(oldJarFile);
+			delta = new ZipFile(deltaFile);
+			verify(readIndex(delta, deltaFile), base, oldJar, oldJarFile);
+			return true;
+		} catch (IOException e) {
+			UpdateCore.warn("Jar delta " + deltaFile + " cannot be applied", e); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		} finally {
+			close(delta);
+			close(oldJar);
+		}
+	}
+
+	/**
+	 * Rebuilds the new jar from <code>oldJarFile</code> and <code>deltaFile</code>
+	 * into <code>target</code>. Nothing is written unless the delta was built
+	 * from <code>oldJarFile</code>.
+	 * @param base the plugin of the old jar
+	 */
+	public static void apply(VersionedIdentifier base, File oldJarFile, File deltaFile, File target) throws IOException {
+		ZipFile oldJar = null;
+		ZipFile delta = null;
+		ZipOutputStream out = null;
+		try {
+			oldJar = new ZipFile(oldJarFile);
+			delta = new ZipFile(deltaFile);
+			String[] index = readIndex(delta, deltaFile);
+			verify(index, base, oldJar, oldJarFile);
+
+			out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+			for (int i = 1; i < index.length; i++) {
+				char op = index[i].charAt(0);
+				String name = getName(index[i]);
+				if (op == KEEP) {
+					ZipEntry oldEntry = oldJar.getEntry(name);
+					write(out, oldEntry, read(oldJar, oldEntry));
+					continue;
+				}
+				ZipEntry deltaEntry = delta.getEntry(name);
+				if (deltaEntry == null)
+					throw new IOException("Invalid jar delta " + deltaFile + ": " + index[i]); //$NON-NLS-1$ //$NON-NLS-2$
+				if (op == FULL) {
+					write(out, deltaEntry, read(delta, deltaEntry));
+				} else {
+					InputStream in = delta.getInputStream(deltaEntry);
+					try {
+						write(out, deltaEntry, BinaryDelta.apply(read(oldJar, oldJar.getEntry(name)), in));
+					} finally {
+						in.close();
+					}
+				}
+			}
+			out.finish();
+		} finally {
+			if (out != null)
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			close(delta);
+			close(oldJar);
+		}
+	}
+
+	/*
+	 * Returns the lines of the index, the header first
+	 */
+	private static String[] readIndex(ZipFile delta, File deltaFile) throws IOException {
+		ZipEntry indexEntry = delta.getEntry(INDEX_ENTRY);
+		if (indexEntry == null)
+			throw new IOException("Not a jar delta: " + deltaFile); //$NON-NLS-1$
+		BufferedReader index = new BufferedReader(new InputStreamReader(delta.getInputStream(indexEntry), "UTF-8")); //$NON-NLS-1$
+		List lines = new ArrayList(); /* of String */
+		try {
+			String line = index.readLine();
+			if (line == null || !line.startsWith(HEADER + ' '))
+				throw new IOException("Unsupported jar delta: " + deltaFile); //$NON-NLS-1$
+			lines.add(line);
+			while ((line = index.readLine()) != null) {
+				if (line.length() < 3)
+					continue;
+				char op = line.charAt(0);
+				if ((op != KEEP && op != FULL && op != DELTA) || line.charAt(1) != ' ')
+					throw new IOException("Invalid jar delta " + deltaFile + ": " + line); //$NON-NLS-1$ //$NON-NLS-2$
+				lines.add(line);
+			}
+		} finally {
+			index.close();
+		}
+		return (String[]) lines.toArray(new String[lines.size()]);
+	}
+
+	/*
+	 * Checks that the delta was built from the jar of the base plugin, and
+	 * that every entry it takes from the old jar is there unchanged
+	 */
+	private static void verify(String[] index, VersionedIdentifier base, ZipFile oldJar, File oldJarFile) throws IOException {
+		StringTokenizer header = new StringTokenizer(index[0]);
+		header.nextToken(); // JARDELTA
+		header.nextToken(); // format version
+		try {
+			VersionedIdentifier built = new VersionedIdentifier(header.nextToken(), header.nextToken());
+			if (!built.equals(base))
+				throw new IOException("Jar delta was built from " + built + ", not " + base); //$NON-NLS-1$ //$NON-NLS-2$
+			long size = Long.parseLong(header.nextToken());
+			long crc = Long.parseLong(header.nextToken(), 16);
+			if (size != oldJarFile.length() || crc != checksum(oldJarFile))
+				throw new IOException("Jar delta does not match " + oldJarFile); //$NON-NLS-1$
+			for (int i = 1; i < index.length; i++) {
+				if (index[i].charAt(0) == FULL)
+					continue;
+				StringTokenizer tokens = new StringTokenizer(index[i].substring(2), " "); //$NON-NLS-1$
+				size = Long.parseLong(tokens.nextToken());
+				crc = Long.parseLong(tokens.nextToken(), 16);
+				ZipEntry oldEntry = oldJar.getEntry(getName(index[i]));
+				if (oldEntry == null || oldEntry.getSize() != size || oldEntry.getCrc() != crc)
+					throw new IOException("Jar delta does not match " + oldJarFile + ": " + index[i]); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} catch (RuntimeException e) {
+			// missing or malformed field
+			throw new IOException("Invalid jar delta index: " + e); //$NON-NLS-1$
+		}
+	}
+
+	/*
+	 * Returns the entry name of an index line, it follows the size and CRC
+	 * on the lines of entries taken from the old jar
+	 */
+	private static String getName(String line) {
+		if (line.charAt(0) == FULL)
+			return line.substring(2);
+		int crc = line.indexOf(' ', 2);
+		int name = crc == -1 ? -1 : line.indexOf(' ', crc + 1);
+		if (name == -1)
+			throw new IllegalArgumentException(line);
+		return line.substring(name + 1);
+	}
+
+	private static void appendOld(StringBuffer index, char op, byte[] oldContent, String name) {
+		CRC32 crc = new CRC32();
+		crc.update(oldContent);
+		index.append(op).append(' ').append(oldContent.length);
+		index.append(' ').append(Long.toHexString(crc.getValue()));
+		index.append(' ').append(name).append('\n');
+	}
+
+	private static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				crc.update(buffer, 0, read);
+		} finally {
+			in.close();
+		}
+		return crc.getValue();
+	}
+
+	private static byte[] read(ZipFile zip, ZipEntry entry) throws IOException {
+		InputStream in = zip.getInputStream(entry);
+		try {
+			int size = (int) entry.getSize();
+			ByteArrayOutputStream content = new ByteArrayOutputStream(size > 0 ? size : 4096);
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				content.write(buffer, 0, read);
+			return content.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void write(ZipOutputStream out, ZipEntry source, byte[] content) throws IOException {
+		ZipEntry entry = new ZipEntry(source.getName());
+		entry.setTime(source.getTime());
+		out.putNextEntry(entry);
+		out.write(content);
+		out.closeEntry();
+	}
+
+	private static void close(ZipFile zip) {
+		if (zip == null)
+			return;
+		try {
+			zip.close();
+		} catch (IOException e) {
+		}
+	}
+}
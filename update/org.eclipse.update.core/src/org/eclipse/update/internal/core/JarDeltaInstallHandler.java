@@ -19,10 +19,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Date;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.zip.ZipEntry;
@@ -31,12 +33,102 @@ import java.util.zip.ZipException;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.update.core.IFeatureContentConsumer;
 import org.eclipse.update.core.IPluginEntry;
+import org.eclipse.update.core.ISite;
 import org.eclipse.update.core.PluginEntry;
 import org.eclipse.update.core.Site;
+import org.eclipse.update.core.Utilities;
 
 public class JarDeltaInstallHandler extends DeltaInstallHandler {
 
-	
+	private static final int MAX_OVERLAY_THREADS = 4;
+
+	/**
+	 * Overlays the plugins on worker threads, each plugin jar is merged
+	 * independently of the others.
+	 */
+	protected void overlayPlugins(
+			IPluginEntry[] oldPlugins,
+			IPluginEntry[] newPlugins,
+			IFeatureContentConsumer consumer)
+			throws CoreException {
+		if (newPlugins.length < 2) {
+			super.overlayPlugins(oldPlugins, newPlugins, consumer);
+			return;
+		}
+
+		List pending = new ArrayList();
+		for (int i = 0; i < newPlugins.length; i++)
+			pending.add(new IPluginEntry[] { oldPlugins[i], newPlugins[i] });
+
+		int numberOfThreads = Math.min(newPlugins.length, MAX_OVERLAY_THREADS);
+		Overlayer overlayer = new Overlayer(pending, consumer);
+		Thread[] threads = new Thread[numberOfThreads];
+		for (int i = 0; i < numberOfThreads; i++) {
+			threads[i] = new Thread(overlayer, "JarDeltaOverlay-" + i); //$NON-NLS-1$
+			threads[i].start();
+		}
+		int i = 0;
+		while (i < numberOfThreads) {
+			try {
+				threads[i].join();
+				i++;
+			} catch (InterruptedException e) {
+			}
+		}
+
+		if (overlayer.coreException != null)
+			throw overlayer.coreException;
+		if (overlayer.ioException != null)
+			throw newOverlayException(overlayer.ioException);
+	}
+
+	/*
+	 * Takes plugin pairs from the shared list until it is empty or an overlay fails
+	 */
+	private class Overlayer implements Runnable {
+		private List pending; /* of IPluginEntry[] {old, new} */
+		private IFeatureContentConsumer consumer;
+		CoreException coreException;
+		IOException ioException;
+
+		Overlayer(List pending, IFeatureContentConsumer consumer) {
+			this.pending = pending;
+			this.consumer = consumer;
+		}
+
+		public void run() {
+			while (true) {
+				IPluginEntry[] plugins;
+				synchronized (pending) {
+					if (pending.isEmpty())
+						return;
+					plugins = (IPluginEntry[]) pending.remove(0);
+				}
+				try {
+					overlayPlugin(plugins[0], plugins[1], consumer);
+				} catch (CoreException e) {
+					fail(e, null);
+				} catch (IOException e) {
+					fail(null, e);
+				} catch (RuntimeException e) {
+					// the install must not report success for a plugin that was not overlaid
+					fail(Utilities.newCoreException(plugins[1].getVersionedIdentifier().toString(), e), null);
+				}
+			}
+		}
+
+		private void fail(CoreException coreException, IOException ioException) {
+			synchronized (pending) {
+				// keep the first failure and stop the other workers
+				if (this.coreException == null && this.ioException == null) {
+					this.coreException = coreException;
+					this.ioException = ioException;
+				}
+				pending.clear();
+			}
+		}
+	}
+
 	protected void overlayPlugin(
 			IPluginEntry oldPlugin,
 			IPluginEntry newPlugin,
@@ -46,52 +138,78 @@ public class JarDeltaInstallHandler extends DeltaInstallHandler {
 			if(newPlugin instanceof PluginEntry && ((PluginEntry)newPlugin).isUnpack()){
 				// partial plug-ins (in patches) must always be unpacked
 				super.overlayPlugin(oldPlugin, newPlugin, consumer);
+				return;
 			}
 			
-			URL oldURI = null;
-			try {
-				oldURI = new URL(consumer.getFeature().getSite().getURL().getPath() + 
-									 Site.DEFAULT_PLUGIN_PATH + 
-									 oldPlugin.getVersionedIdentifier().toString());
-			} catch (MalformedURLException e) {
-				throw new IOException(e.getMessage());
-			}
-			File oldJarFile = new File(oldURI.toExternalForm());
-			JarFile oldJar = new JarFile(oldJarFile);
-			
-			URL newURI = null;
+			File oldJarFile = getPluginJar(oldFeature.getSite(), oldPlugin);
+			File newJarFile = getPluginJar(consumer.getFeature().getSite(), newPlugin);
+
+			// merge next to the target so it can be renamed into place
+			File tempFile = File.createTempFile(newJarFile.getName(), ".tmp", newJarFile.getParentFile()); //$NON-NLS-1$
 			try {
-				newURI = new URL(consumer.getFeature().getSite().getURL().getPath() + 
-								 Site.DEFAULT_PLUGIN_PATH + 
-								 newPlugin.getVersionedIdentifier().toString());
-			} catch (MalformedURLException e) {
-				throw new IOException(e.getMessage());
+				mergeJars(newJarFile, oldJarFile, tempFile);
+				replaceFile(tempFile, newJarFile);
+			} finally {
+				tempFile.delete();
 			}
-			File newJarFile = new File(newURI.toExternalForm());
-			JarFile newJar = new JarFile(newJarFile);
+	}
 
-			String tempFileName = oldURI + "-" + (new Date()).getTime(); //$NON-NLS-1$
-			File tempFile = new File(tempFileName);
-			FileOutputStream fos = new FileOutputStream(tempFile);
-			JarOutputStream jos = new JarOutputStream( fos);
-			
-			addToJar(jos, newJar);
-			addToJar(jos, oldJar);
-			
-			jos.closeEntry();
+	/**
+	 * Returns the jar of the plugin on the given site
+	 */
+	protected File getPluginJar(ISite site, IPluginEntry plugin) throws IOException {
+		URL url = new URL(site.getURL(), Site.DEFAULT_PLUGIN_PATH + plugin.getVersionedIdentifier().toString() + ".jar"); //$NON-NLS-1$
+		return new File(url.getFile());
+	}
+
+	/**
+	 * Writes the entries of <code>newJarFile</code> followed by the entries of
+	 * <code>oldJarFile</code> it does not contain to <code>target</code>,
+	 * in one pass.
+	 */
+	public static void mergeJars(File newJarFile, File oldJarFile, File target) throws IOException {
+		JarFile newJar = new JarFile(newJarFile);
+		JarFile oldJar = null;
+		JarOutputStream jos = null;
+		try {
+			oldJar = new JarFile(oldJarFile);
+			jos = new JarOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+			Set names = new HashSet();
+			addToJar(jos, newJar, names);
+			addToJar(jos, oldJar, names);
 			jos.finish();
-			fos.close();
-			newJar.close();
-			oldJar.close();
-			
-			newJarFile = new File(newURI.toExternalForm());
-			newJarFile.delete();
-			
-			newJarFile.createNewFile();
+		} finally {
+			if (jos != null)
+				try {
+					jos.close();
+				} catch (IOException e) {
+				}
+			if (oldJar != null)
+				try {
+					oldJar.close();
+				} catch (IOException e) {
+				}
+			try {
+				newJar.close();
+			} catch (IOException e) {
+			}
+		}
+	}
 
-			copyFile(tempFile, newJarFile);
+	/**
+	 * Moves <code>src</code> over <code>dst</code>. The file is renamed when
+	 * the platform allows it and copied otherwise.
+	 */
+	public static void replaceFile(File src, File dst) throws IOException {
+		if (src.renameTo(dst))
+			return;
+		// renaming over an existing file fails on some platforms
+		dst.delete();
+		if (src.renameTo(dst))
+			return;
+		copyFile(src, dst);
 	}
-	
+
 	public static void copyFile(File src, File dst) throws IOException {
 		InputStream in=null;
 		OutputStream out=null;
@@ -118,24 +236,42 @@ public class JarDeltaInstallHandler extends DeltaInstallHandler {
 	}
 
 	public static void addToJar(JarOutputStream jos, JarFile jf) throws IOException {
+		addToJar(jos, jf, new HashSet());
+	}
+
+	/**
+	 * Copies the entries of the jar whose name is not in <code>names</code>,
+	 * and adds the names of the copied entries to it
+	 */
+	public static void addToJar(JarOutputStream jos, JarFile jf, Set names) throws IOException {
 		Enumeration e = jf.entries();
+		byte b[] = new byte[4096];
 		
 		while(e.hasMoreElements()) {
 			
 			ZipEntry je = (ZipEntry)e.nextElement();
+			if (!names.add(je.getName()))
+				continue;
+			// the entry is compressed again, do not carry its compressed size over
+			ZipEntry entry = new ZipEntry(je.getName());
+			entry.setTime(je.getTime());
+			if (je.getExtra() != null)
+				entry.setExtra(je.getExtra());
 			InputStream io = jf.getInputStream(je);
 			
-			byte b[] = new byte[4096];
 			int read = 0;
 			try {
-				jos.putNextEntry(je);
+				jos.putNextEntry(entry);
 				while( ( read = io.read(b, 0, 4096)) != -1) {
 					jos.write(b, 0, read);
 				}
+				jos.closeEntry();
 			} catch (ZipException ze) {
 				//ze.printStackTrace();
 				throw ze;
-			}		
+			} finally {
+				io.close();
+			}
 		}
 	}
 }
@@ -43,6 +43,8 @@ public class LocalSite extends SiteLocalModel implements ILocalSite{
 	private ListenerList listeners = new ListenerList(ListenerList.IDENTITY);
 	private SiteStatusAnalyzer siteStatusAnalyzer;
 	private boolean isTransient = false;
+	private boolean saveDeferred = false;
+	private boolean savePending = false;
 
 	/*
 	 * Have new features been found during reconciliation
@@ -73,6 +75,10 @@ public class LocalSite extends SiteLocalModel implements ILocalSite{
 			localSite.setLocationURLString(configXML.toExternalForm());
 			localSite.resolve(configXML, null);
 	
+			// roll back an install that was interrupted by a crash
+			if (!localSite.isTransient())
+				rollbackInterruptedInstall();
+
 			// Attempt to read previous state
 			parseLocalSiteFile(currentPlatformConfiguration, localSite);
 
@@ -83,6 +89,22 @@ public class LocalSite extends SiteLocalModel implements ILocalSite{
 		return localSite;
 	}
 
+	/*
+	 * Replays the error recovery log left behind by an interrupted install
+	 */
+	private static void rollbackInterruptedInstall() {
+		try {
+			ErrorRecoveryLog recoveryLog = ErrorRecoveryLog.getLog();
+			if (recoveryLog.isInterrupted()) {
+				IStatus status = recoveryLog.rollback();
+				if (!status.isOK())
+					UpdateCore.log(status);
+			}
+		} catch (CoreException e) {
+			UpdateCore.warn("Unable to replay the Error/Recovery log", e); //$NON-NLS-1$
+		}
+	}
+
 	/**
 	 * Create the localSite object
 	 */
@@ -139,11 +161,13 @@ public class LocalSite extends SiteLocalModel implements ILocalSite{
 	private void trimHistoryToCapacity() {
 		// check if we have to remove a configuration
 		// the first added is #0
-		while (getConfigurationHistory().length > getMaximumHistoryCount() &&
-				getConfigurationHistory().length > 1) {
-			// do not remove the first element in history, this is the original config
-			InstallConfigurationModel removedConfig = getConfigurationHistoryModel()[1];
+		InstallConfigurationModel[] history = getConfigurationHistoryModel();
+		int size = history.length;
+		// do not remove the first element in history, this is the original config
+		for (int index = 1; index < history.length && size > getMaximumHistoryCount() && size > 1; index++) {
+			InstallConfigurationModel removedConfig = history[index];
 			if (removeConfigurationModel(removedConfig)) {
+				size--;
 
 				// DEBUG:
 				if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_CONFIGURATION) {
@@ -173,7 +197,7 @@ public class LocalSite extends SiteLocalModel implements ILocalSite{
 	 * @see ILocalSite#removeLocalSiteChangedListener(ILocalSiteChangedListener)
 	 */
 	public void removeLocalSiteChangedListener(ILocalSiteChangedListener listener) {
-		listeners.add(listener);
+		listeners.remove(listener);
 	}
 
 	/**
@@ -182,11 +206,41 @@ public class LocalSite extends SiteLocalModel implements ILocalSite{
 	 */
 	public boolean save() throws CoreException {
 
+		synchronized (this) {
+			if (saveDeferred) {
+				savePending = true;
+				return false;
+			}
+		}
+
 		// Save the current configuration as
 		// the other are already saved
 		// and set runtim info for next startup
 		return ((InstallConfiguration) getCurrentConfiguration()).save();
 	}
+
+	/**
+	 * Defers the saves of the site until <code>saveDeferredChanges()</code>,
+	 * so a sequence of changes is written once.
+	 */
+	public synchronized void setSaveDeferred(boolean deferred) {
+		saveDeferred = deferred;
+	}
+
+	/**
+	 * Stops deferring the saves and saves the site if it was asked to
+	 * while the saves were deferred.
+	 * @return true if changes restart is needed
+	 */
+	public boolean saveDeferredChanges() throws CoreException {
+		synchronized (this) {
+			saveDeferred = false;
+			if (!savePending)
+				return false;
+			savePending = false;
+		}
+		return save();
+	}
 	
 //	/**
 //	 * Method createNewInstallConfiguration.
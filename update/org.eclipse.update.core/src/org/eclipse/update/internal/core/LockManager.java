@@ -10,30 +10,96 @@
  *******************************************************************************/
 package org.eclipse.update.internal.core;
 
-import java.util.Hashtable;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * Serializes the work done on a key, typically the download of a URL.
+ * <p>
+ * Threads working on the same key share the same lock for as long as one of
+ * them holds it. The first thread to finish can publish its result on the
+ * lock so the threads that waited for it reuse the result instead of doing
+ * the work again. Keys are spread over independent stripes so threads working
+ * on different keys do not contend.
+ * </p>
+ * <p>
+ * Every <code>getLock</code> must be paired with a <code>returnLock</code>,
+ * the lock is discarded when the last thread returns it.
+ * </p>
  * @author aniefer
  *
  */
 public class LockManager {
-	// lock
-	private final static Object lock = new Object();
+	// number of stripes, must be a power of 2
+	private static final int STRIPES = 16;
 
-	// hashtable of locks
-	private static Hashtable locks = new Hashtable();
-	
-	public static Object getLock(String key) {
-		synchronized (lock) {
-			if (locks.get(key) == null)
-				locks.put(key, key);
-			return locks.get(key);
+	// hashtables of locks, each one is also the monitor of its stripe
+	private static final Map[] locks = new Map[STRIPES];
+
+	static {
+		for (int i = 0; i < STRIPES; i++)
+			locks[i] = new HashMap();
+	}
+
+	/**
+	 * The lock of a key
+	 */
+	public static class Lock {
+		private String key;
+		private int users;
+		private Object result;
+
+		private Lock(String key) {
+			this.key = key;
+		}
+
+		/**
+		 * Returns the result published by a previous holder of the lock,
+		 * or <code>null</code>. Must be called while synchronized on the lock.
+		 */
+		public Object getResult() {
+			return result;
+		}
+
+		/**
+		 * Publishes the result of the work done under the lock for the 
+		 * threads waiting on it. Must be called while synchronized on the lock.
+		 */
+		public void setResult(Object result) {
+			this.result = result;
+		}
+
+		public String toString() {
+			return key;
+		}
+	}
+
+	public static Lock getLock(String key) {
+		Map stripe = getStripe(key);
+		synchronized (stripe) {
+			Lock lock = (Lock) stripe.get(key);
+			if (lock == null) {
+				lock = new Lock(key);
+				stripe.put(key, lock);
+			}
+			lock.users++;
+			return lock;
 		}
 	}
 	
 	public static void returnLock(String key) {
-		synchronized (lock) {
-			locks.remove(key);
+		Map stripe = getStripe(key);
+		synchronized (stripe) {
+			Lock lock = (Lock) stripe.get(key);
+			if (lock != null && --lock.users <= 0)
+				stripe.remove(key);
 		}
 	}
+
+	private static Map getStripe(String key) {
+		int hash = key.hashCode();
+		// spread the higher bits, keys often only differ at the end
+		hash ^= (hash >>> 16);
+		return locks[hash & (STRIPES - 1)];
+	}
 }
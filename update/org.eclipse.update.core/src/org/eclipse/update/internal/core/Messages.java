@@ -263,6 +263,9 @@ public final class Messages extends NLS {
 	public static String Standalone_updating;
 	public static String Standalone_noUpdate;
 	public static String Standalone_updated;
+	public static String Standalone_noScript;
+	public static String Standalone_batchCmd;
+	public static String Standalone_batchCmdFailed;
 	
 	public static String SiteFilePluginContentConsumer_unableToDelete;
 	public static String SiteFilePackedPluginContentConsumer_unableToDelete;	
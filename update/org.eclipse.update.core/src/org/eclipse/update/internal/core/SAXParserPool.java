@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.update.internal.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Pool of namespace aware SAX parsers shared by the site, feature,
+ * plugin and digest parsers.
+ * <p>
+ * A parser is taken from the pool for the duration of one parse, so
+ * handlers can be created and used concurrently without creating a
+ * parser each time.
+ * </p>
+ */
+public class SAXParserPool {
+
+	private static final int MAX_IDLE = 8;
+
+	private static final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+	static {
+		parserFactory.setNamespaceAware(true);
+	}
+
+	private static final List idle = new ArrayList(MAX_IDLE); /* of SAXParser */
+
+	/**
+	 * Thrown by a handler to stop the parse once it has the information it needs.
+	 * Unlike other failures it leaves the parser fit to be reused.
+	 */
+	public static class ParseCompleteException extends SAXException {
+
+		private static final long serialVersionUID = 1L;
+
+		public ParseCompleteException(String message) {
+			super(message);
+		}
+	}
+
+	private SAXParserPool() {
+	}
+
+	/**
+	 * Parses the input with a pooled parser, reporting to the handler.
+	 * The parser goes back to the pool only when the parse completed or
+	 * the handler stopped it with a {@link ParseCompleteException}.
+	 */
+	public static void parse(InputSource input, DefaultHandler handler) throws SAXException, IOException {
+		SAXParser parser = acquire();
+		boolean reusable = false;
+		try {
+			parser.parse(input, handler);
+			reusable = true;
+		} catch (ParseCompleteException e) {
+			reusable = true;
+			throw e;
+		} finally {
+			// a parser aborted by an error is not safe to reuse on every implementation
+			if (reusable)
+				release(parser);
+		}
+	}
+
+	/**
+	 * Returns an idle parser, or a new one if none is idle
+	 */
+	public static SAXParser acquire() throws SAXException {
+		synchronized (idle) {
+			if (!idle.isEmpty())
+				return (SAXParser) idle.remove(idle.size() - 1);
+		}
+		try {
+			synchronized (parserFactory) {
+				return parserFactory.newSAXParser();
+			}
+		} catch (ParserConfigurationException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	/**
+	 * Returns the parser to the pool
+	 */
+	public static void release(SAXParser parser) {
+		synchronized (idle) {
+			if (idle.size() < MAX_IDLE)
+				idle.add(parser);
+		}
+	}
+}
@@ -115,7 +115,7 @@ public class SiteFileContentConsumer extends SiteContentConsumer {
 			}
 			featurePath = ErrorRecoveryLog.getLocalRandomIdentifier(featurePath);
 			newPath = featurePath;
-			ErrorRecoveryLog.getLog().appendPath(ErrorRecoveryLog.FEATURE_ENTRY, featurePath);
+			ErrorRecoveryLog.getLog().appendPath(ErrorRecoveryLog.FEATURE_ENTRY, featurePath, oldPath);
 		}
 
 		try {
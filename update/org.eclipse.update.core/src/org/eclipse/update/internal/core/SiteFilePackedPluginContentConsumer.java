@@ -57,7 +57,7 @@ public class SiteFilePackedPluginContentConsumer extends ContentConsumer {
 			}
 			// error recovery
 			tempPath= ErrorRecoveryLog.getLocalRandomIdentifier(jarPath+".tmp"); //$NON-NLS-1$
-				ErrorRecoveryLog.getLog().appendPath(ErrorRecoveryLog.BUNDLE_JAR_ENTRY, tempPath);
+				ErrorRecoveryLog.getLog().appendPath(ErrorRecoveryLog.BUNDLE_JAR_ENTRY, tempPath, jarPath);
 			//
 			UpdateManagerUtils.copyToLocal(inStream, tempPath, null);
 		} catch (IOException e) {
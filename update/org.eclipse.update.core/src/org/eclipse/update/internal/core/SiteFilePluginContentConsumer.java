@@ -84,7 +84,7 @@ public class SiteFilePluginContentConsumer extends ContentConsumer {
 				}
 				pluginPath = ErrorRecoveryLog.getLocalRandomIdentifier(pluginPath);
 				renames.put(pluginPath, originalName);
-				ErrorRecoveryLog.getLog().appendPath(logEntry, pluginPath);
+				ErrorRecoveryLog.getLog().appendPath(logEntry, pluginPath, originalName);
 			}
 			//
 			UpdateManagerUtils.copyToLocal(inStream, pluginPath, null);
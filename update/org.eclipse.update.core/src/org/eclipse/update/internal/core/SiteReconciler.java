@@ -22,6 +22,49 @@ import org.eclipse.update.core.model.ModelObject;
 
 public class SiteReconciler extends ModelObject {
 
+	/*
+	 * Features retained by an expansion, in order, with their identifiers
+	 * to tell quickly whether a feature is already retained
+	 */
+	private static class Expansion {
+		ArrayList features = new ArrayList();
+		Set ids = new HashSet(); /* of VersionedIdentifier */
+
+		boolean add(IFeature feature) {
+			if (!ids.add(feature.getVersionedIdentifier()))
+				return false;
+			features.add(feature);
+			return true;
+		}
+	}
+
+	/*
+	 * Included features resolved during a reconciliation, so the children
+	 * of a feature reached through several parents are resolved only once
+	 */
+	private static class IncludedFeatures {
+		private Map resolved = new HashMap(); /* key=VersionedIdentifier value=IFeature[] aligned with the included references, null when missing */
+
+		IFeature[] getIncludedFeatures(IFeature feature, IIncludedFeatureReference[] children) {
+			VersionedIdentifier id = feature.getVersionedIdentifier();
+			IFeature[] result = (IFeature[]) resolved.get(id);
+			if (result != null && result.length == children.length)
+				return result;
+			result = new IFeature[children.length];
+			for (int j = 0; j < children.length; j++) {
+				try {
+					result[j] = children[j].getFeature(null);
+				} catch (CoreException e) {
+					if (!UpdateManagerUtils.isOptional(children[j]))
+						UpdateCore.warn("", e); //$NON-NLS-1$
+					// 25202 do not return right now, the peer children may be ok
+				}
+			}
+			resolved.put(id, result);
+			return result;
+		}
+	}
+
 	private SiteReconciler(LocalSite siteLocal) {
 		//never instantiated
 	}
@@ -32,6 +75,14 @@ public class SiteReconciler extends ModelObject {
 	 * nested features with "holes" (ie. unconfigured children)
 	 */
 	public static void checkConfiguredFeatures(IConfiguredSite configuredSite) {
+		ArrayList extras = computeExtraFeatures(configuredSite, new IncludedFeatures());
+		unconfigureExtraFeatures(configuredSite, extras);
+	}
+
+	/*
+	 * Returns the configured features of the site that are not needed
+	 */
+	private static ArrayList computeExtraFeatures(IConfiguredSite configuredSite, IncludedFeatures includedFeatures) {
 
 		// Note: if we hit errors in the various computation
 		// methods and throw a CoreException, we will not catch it
@@ -42,6 +93,7 @@ public class SiteReconciler extends ModelObject {
 		// on runtime binding rules.
 
 		// determine "proposed" list of configured features
+		long start = System.currentTimeMillis();
 		ConfiguredSite cSite = (ConfiguredSite) configuredSite;
 		// debug
 		if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_RECONCILER) {
@@ -69,7 +121,7 @@ public class SiteReconciler extends ModelObject {
 		ArrayList topNonEfixFeatures = getNonEfixFeatures(topFeatures);
 
 		// expand non efix top level features (compute full nesting structures).
-		ArrayList configuredFeatures = expandFeatures(topNonEfixFeatures, configuredSite);
+		ArrayList configuredFeatures = expandFeatures(topNonEfixFeatures, includedFeatures);
 
 		// retrieve efixes that patch enable feature
 		// they must be kept enabled
@@ -82,9 +134,9 @@ public class SiteReconciler extends ModelObject {
 				//add them to the enable list
 				for (Iterator iter = efixesToEnable.iterator(); iter.hasNext();) {
 					IFeature element = (IFeature) iter.next();
-					ArrayList expandedEfix = new ArrayList();
-					expandEfixFeature(element, expandedEfix, configuredSite);
-					configuredFeatures.addAll(expandedEfix);
+					Expansion expandedEfix = new Expansion();
+					expandEfixFeature(element, expandedEfix, includedFeatures);
+					configuredFeatures.addAll(expandedEfix.features);
 				}
 			}
 		}
@@ -92,7 +144,17 @@ public class SiteReconciler extends ModelObject {
 		// compute extra features
 		ArrayList extras = diff(allPossibleConfiguredFeatures, configuredFeatures);
 
-		// unconfigure extra features
+		if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_RECONCILER) {
+			UpdateCore.debug("Validated configuration of site " + cSite.getSite().getURL() + " in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return extras;
+	}
+
+	/*
+	 * Unconfigures the extra features of the site
+	 */
+	private static void unconfigureExtraFeatures(IConfiguredSite configuredSite, ArrayList extras) {
+		ConfiguredSite cSite = (ConfiguredSite) configuredSite;
 		ConfigurationPolicy cPolicy = cSite.getConfigurationPolicy();
 		for (int i = 0; i < extras.size(); i++) {
 			IFeature feature = (IFeature) extras.get(i);
@@ -151,29 +213,28 @@ public class SiteReconciler extends ModelObject {
 	/*
 	 * 
 	 */
-	private static ArrayList expandFeatures(ArrayList features, IConfiguredSite configuredSite) {
-		ArrayList result = new ArrayList();
+	private static ArrayList expandFeatures(ArrayList features, IncludedFeatures includedFeatures) {
+		Expansion result = new Expansion();
 
 		// expand all top level features
 		for (int i = 0; i < features.size(); i++) {
-			expandFeature((IFeature) features.get(i), result, configuredSite);
+			expandFeature((IFeature) features.get(i), result, includedFeatures);
 		}
 
-		return result;
+		return result.features;
 	}
 
 	/*
 	 * 
 	 */
-	private static void expandFeature(IFeature feature, ArrayList features, IConfiguredSite configuredSite) {
+	private static void expandFeature(IFeature feature, Expansion features, IncludedFeatures includedFeatures) {
 
-		// add feature
-		if (!features.contains(feature)) {
-			features.add(feature);
-			// debug
-			if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_RECONCILER) {
-				UpdateCore.debug("Retaining configured feature " + feature.getVersionedIdentifier().toString()); //$NON-NLS-1$
-			}
+		// add feature, a feature already retained has been expanded
+		if (!features.add(feature))
+			return;
+		// debug
+		if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_RECONCILER) {
+			UpdateCore.debug("Retaining configured feature " + feature.getVersionedIdentifier().toString()); //$NON-NLS-1$
 		}
 
 		// add nested children to the list
@@ -185,17 +246,10 @@ public class SiteReconciler extends ModelObject {
 			return;
 		}
 
-		for (int j = 0; j < children.length; j++) {
-			IFeature child = null;
-			try {
-				child = children[j].getFeature(null);
-			} catch (CoreException e) {
-				if (!UpdateManagerUtils.isOptional(children[j]))
-					UpdateCore.warn("", e); //$NON-NLS-1$
-				// 25202 do not return right now, the peer children may be ok
-			}
-			if (child != null)
-				expandFeature(child, features, configuredSite);
+		IFeature[] childFeatures = includedFeatures.getIncludedFeatures(feature, children);
+		for (int j = 0; j < childFeatures.length; j++) {
+			if (childFeatures[j] != null)
+				expandFeature(childFeatures[j], features, includedFeatures);
 		}
 	}
 
@@ -308,15 +362,14 @@ public class SiteReconciler extends ModelObject {
 	/*
 	 * only enable non-efix children recursively
 	 */
-	private static void expandEfixFeature(IFeature feature, ArrayList features, IConfiguredSite configuredSite) {
+	private static void expandEfixFeature(IFeature feature, Expansion features, IncludedFeatures includedFeatures) {
 
-		// add feature
-		if (!features.contains(feature)) {
-			features.add(feature);
-			// debug
-			if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_RECONCILER) {
-				UpdateCore.debug("Retaining configured feature " + feature.getVersionedIdentifier().toString()); //$NON-NLS-1$
-			}
+		// add feature, a feature already retained has been expanded
+		if (!features.add(feature))
+			return;
+		// debug
+		if (UpdateCore.DEBUG && UpdateCore.DEBUG_SHOW_RECONCILER) {
+			UpdateCore.debug("Retaining configured feature " + feature.getVersionedIdentifier().toString()); //$NON-NLS-1$
 		}
 
 		// add nested children to the list
@@ -328,18 +381,12 @@ public class SiteReconciler extends ModelObject {
 			return;
 		}
 
-		for (int j = 0; j < children.length; j++) {
-			IFeature child = null;
-			try {
-				child = children[j].getFeature(null);
-			} catch (CoreException e) {
-				if (!children[j].isOptional())
-					UpdateCore.warn("", e); //$NON-NLS-1$
-				// 25202 do not return right now, the peer children may be ok
-			}
+		IFeature[] childFeatures = includedFeatures.getIncludedFeatures(feature, children);
+		for (int j = 0; j < childFeatures.length; j++) {
+			IFeature child = childFeatures[j];
 			if (child != null) {
 				if (!UpdateCore.isPatch(child))
-					expandEfixFeature(child, features, configuredSite);
+					expandEfixFeature(child, features, includedFeatures);
 			}
 		}
 	}
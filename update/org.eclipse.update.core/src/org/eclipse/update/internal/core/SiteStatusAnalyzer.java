@@ -16,8 +16,10 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.eclipse.core.runtime.CoreException;
@@ -26,6 +28,10 @@ import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.update.configuration.IConfiguredSite;
+import org.eclipse.update.configuration.IConfiguredSiteChangedListener;
+import org.eclipse.update.configuration.IInstallConfiguration;
+import org.eclipse.update.configuration.IInstallConfigurationChangedListener;
+import org.eclipse.update.configuration.ILocalSiteChangedListener;
 import org.eclipse.update.configurator.ConfiguratorUtils;
 import org.eclipse.update.configurator.IPlatformConfiguration;
 import org.eclipse.update.core.IFeature;
@@ -42,13 +48,17 @@ import org.osgi.service.packageadmin.PackageAdmin;
  * This class manages the configurations.
  */
 
-public class SiteStatusAnalyzer {
+public class SiteStatusAnalyzer implements ILocalSiteChangedListener, IInstallConfigurationChangedListener, IConfiguredSiteChangedListener {
 
 	private static final String SOURCE_BUNDLES_PATH = "org.eclipse.equinox.source/source.info"; //$NON-NLS-1$
 	private static final String ID = "org.eclipse.update.core"; //$NON-NLS-1$
-	private static List allConfiguredFeatures; /*VersionedIdentifier */
 	private LocalSite siteLocal;
 
+	// index of the current configuration, dropped when the configuration changes
+	private Map featuresByPlugin; /* key=plugin VersionedIdentifier value=IFeature */
+	private IInstallConfiguration indexedConfiguration;
+	private IConfiguredSite[] indexedSites;
+
 	// A list of versionedIdentifiers for source bundles; initialized on demand.
 	private List sourceBundles = null;
 
@@ -406,35 +416,54 @@ public class SiteStatusAnalyzer {
 	}
 
 	/*
-	 * returns all the configured fetaures
+	 * Indexes the plugins of the configured features of the current configuration,
+	 * and listens to the configuration so the index is dropped when it changes
 	 */
-	private IFeature[] getAllConfiguredFeatures() {
-		if (allConfiguredFeatures == null) {
-
-			allConfiguredFeatures = new ArrayList();
-			IConfiguredSite[] allConfiguredSites = siteLocal.getCurrentConfiguration().getConfiguredSites();
-
-			for (int i = 0; i < allConfiguredSites.length; i++) {
-				IFeatureReference[] refs = allConfiguredSites[i].getConfiguredFeatures();
+	private synchronized Map getFeaturesByPlugin() {
+		if (featuresByPlugin != null)
+			return featuresByPlugin;
+
+		featuresByPlugin = new HashMap();
+		indexedConfiguration = siteLocal.getCurrentConfiguration();
+		indexedSites = indexedConfiguration.getConfiguredSites();
+
+		siteLocal.addLocalSiteChangedListener(this);
+		indexedConfiguration.addInstallConfigurationChangedListener(this);
+		for (int i = 0; i < indexedSites.length; i++) {
+			indexedSites[i].addConfiguredSiteChangedListener(this);
+			IFeatureReference[] refs = indexedSites[i].getConfiguredFeatures();
+			for (int j = 0; j < refs.length; j++) {
 				IFeature feature = null;
-				for (int j = 0; j < refs.length; j++) {
-					feature = null;
-					try {
-						feature = refs[j].getFeature(null);
-					} catch (CoreException e) {
-					}
-					if (feature != null) {
-						allConfiguredFeatures.add(feature);
-					}
+				try {
+					feature = refs[j].getFeature(null);
+				} catch (CoreException e) {
+				}
+				if (feature == null)
+					continue;
+				IPluginEntry[] plugins = feature.getPluginEntries();
+				for (int k = 0; k < plugins.length; k++) {
+					// the first configured feature declaring the plugin wins
+					VersionedIdentifier pluginId = plugins[k].getVersionedIdentifier();
+					if (!featuresByPlugin.containsKey(pluginId))
+						featuresByPlugin.put(pluginId, feature);
 				}
 			}
 		}
+		return featuresByPlugin;
+	}
 
-		IFeature[] features = new IFeature[allConfiguredFeatures.size()];
-		if (allConfiguredFeatures.size() > 0) {
-			allConfiguredFeatures.toArray(features);
-		}
-		return features;
+	/*
+	 * Drops the index, it is rebuilt on next use
+	 */
+	private synchronized void invalidate() {
+		if (featuresByPlugin == null)
+			return;
+		indexedConfiguration.removeInstallConfigurationChangedListener(this);
+		for (int i = 0; i < indexedSites.length; i++)
+			indexedSites[i].removeConfiguredSiteChangedListener(this);
+		featuresByPlugin = null;
+		indexedConfiguration = null;
+		indexedSites = null;
 	}
 
 	/*
@@ -445,19 +474,62 @@ public class SiteStatusAnalyzer {
 		if (id == null)
 			return null;
 
-		IFeature[] allFeatures = getAllConfiguredFeatures();
-		IFeature currentFeature = null;
-		IPluginEntry[] allPlugins = null;
-		IPluginEntry currentPlugin = null;
-		for (int i = 0; i < allFeatures.length; i++) {
-			currentFeature = allFeatures[i];
-			allPlugins = currentFeature.getPluginEntries();
-			for (int j = 0; j < allPlugins.length; j++) {
-				currentPlugin = allPlugins[j];
-				if (id.equals(currentPlugin.getVersionedIdentifier()))
-					return currentFeature;
-			}
-		}
-		return null;
+		return (IFeature) getFeaturesByPlugin().get(id);
+	}
+
+	/*
+	 * @see ILocalSiteChangedListener#currentInstallConfigurationChanged(IInstallConfiguration)
+	 */
+	public void currentInstallConfigurationChanged(IInstallConfiguration configuration) {
+		invalidate();
+	}
+
+	/*
+	 * @see ILocalSiteChangedListener#installConfigurationRemoved(IInstallConfiguration)
+	 */
+	public void installConfigurationRemoved(IInstallConfiguration configuration) {
+		// only the current configuration is indexed
+	}
+
+	/*
+	 * @see IInstallConfigurationChangedListener#installSiteAdded(IConfiguredSite)
+	 */
+	public void installSiteAdded(IConfiguredSite site) {
+		invalidate();
+	}
+
+	/*
+	 * @see IInstallConfigurationChangedListener#installSiteRemoved(IConfiguredSite)
+	 */
+	public void installSiteRemoved(IConfiguredSite site) {
+		invalidate();
+	}
+
+	/*
+	 * @see IConfiguredSiteChangedListener#featureInstalled(IFeature)
+	 */
+	public void featureInstalled(IFeature feature) {
+		invalidate();
+	}
+
+	/*
+	 * @see IConfiguredSiteChangedListener#featureRemoved(IFeature)
+	 */
+	public void featureRemoved(IFeature feature) {
+		invalidate();
+	}
+
+	/*
+	 * @see IConfiguredSiteChangedListener#featureConfigured(IFeature)
+	 */
+	public void featureConfigured(IFeature feature) {
+		invalidate();
+	}
+
+	/*
+	 * @see IConfiguredSiteChangedListener#featureUnconfigured(IFeature)
+	 */
+	public void featureUnconfigured(IFeature feature) {
+		invalidate();
 	}
 }
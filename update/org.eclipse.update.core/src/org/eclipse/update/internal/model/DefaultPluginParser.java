@@ -12,7 +12,6 @@ package org.eclipse.update.internal.model;
 
 
 import java.io.*;
-import javax.xml.parsers.*;
 
 import org.eclipse.update.core.*;
 import org.eclipse.update.internal.core.*;
@@ -24,9 +23,6 @@ import org.xml.sax.helpers.*;
  */
 
 public class DefaultPluginParser extends DefaultHandler {
-	private final static SAXParserFactory parserFactory =
-		SAXParserFactory.newInstance();
-	private SAXParser parser;
 	private String id = null;
 	private String version = null;
 	private PluginEntry pluginEntry;
@@ -34,28 +30,11 @@ public class DefaultPluginParser extends DefaultHandler {
 	private static final String PLUGIN = "plugin"; //$NON-NLS-1$
 	private static final String FRAGMENT = "fragment"; //$NON-NLS-1$
 
-	private class ParseCompleteException extends SAXException {
-
-        private static final long serialVersionUID = 1L;
-
-        public ParseCompleteException(String arg0) {
-			super(arg0);
-		}
-	}
-
 	/**
 	 * Constructor for DefaultFeatureParser
 	 */
 	public DefaultPluginParser() {
 		super();
-		try {
-			parserFactory.setNamespaceAware(true);
-			this.parser = parserFactory.newSAXParser();
-		} catch (ParserConfigurationException e) {
-			UpdateCore.log(e);
-		} catch (SAXException e) {
-			UpdateCore.log(e);
-		}
 	}
 
 	/**
@@ -64,8 +43,8 @@ public class DefaultPluginParser extends DefaultHandler {
 	public synchronized PluginEntry parse(InputStream in) throws SAXException, IOException {
 		try {
 			pluginEntry = new PluginEntry();
-			parser.parse(new InputSource(in), this);
-		} catch (ParseCompleteException e) {
+			SAXParserPool.parse(new InputSource(in), this);
+		} catch (SAXParserPool.ParseCompleteException e) {
 			// expected, we stopped the parsing when we have the information we need
 			/// no need to pursue the parsing
 		}
@@ -99,9 +78,9 @@ public class DefaultPluginParser extends DefaultHandler {
 	/** 
 	 * process plugin entry info
 	 */
-	private void processPlugin(Attributes attributes) throws ParseCompleteException {
+	private void processPlugin(Attributes attributes) throws SAXParserPool.ParseCompleteException {
 		id = attributes.getValue("id"); //$NON-NLS-1$
 		version = attributes.getValue("version"); //$NON-NLS-1$
-		throw new ParseCompleteException(""); //$NON-NLS-1$
+		throw new SAXParserPool.ParseCompleteException(""); //$NON-NLS-1$
 	}
 }
@@ -118,6 +118,15 @@ public class InstallConfigurationModel extends ModelObject {
 		this.isCurrent = isCurrent;
 	}
 
+	/*
+	 * Sets what the light initialization would read from the file,
+	 * when it is already known from somewhere else
+	 */
+	void markLightlyInitialized(boolean isCurrent) {
+		this.isCurrent = isCurrent;
+		lightlyInitialized = true;
+	}
+
 	/**
 	 * @since 2.0
 	 */
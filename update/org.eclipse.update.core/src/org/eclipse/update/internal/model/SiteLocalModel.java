@@ -13,6 +13,7 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.MissingResourceException;
@@ -237,6 +238,10 @@ public class SiteLocalModel extends ModelObject {
 
 	/*
 	 * reads the configuration/history directory
+	 * The history files are named after the time stamp of the configuration
+	 * they backed up, so the history is indexed from the file names only, in
+	 * chronological order. A history file is only parsed when the sites of
+	 * its configuration are needed.
 	 */
 	private void processHistory() {
 		try {
@@ -245,19 +250,35 @@ public class SiteLocalModel extends ModelObject {
 			File historyDir = new File(historyURL.getFile());
 			if (historyDir.exists()) {
 				File[] backedConfigs = historyDir.listFiles();
-				BaseSiteLocalFactory factory = new BaseSiteLocalFactory();
+				if (backedConfigs == null)
+					return;
+				List entries = new ArrayList(backedConfigs.length);
 				for (int i=0; i<backedConfigs.length; i++) {
 					String name = backedConfigs[i].getName();
 					if (name.endsWith(".xml")) //$NON-NLS-1$
 						name = name.substring(0, name.length()-4);
 					else 
 						continue;
-					Date date = new Date(Long.parseLong(name));
+					try {
+						entries.add(new HistoryEntry(Long.parseLong(name), backedConfigs[i]));
+					} catch (NumberFormatException e) {
+						UpdateCore.warn("Ignoring history file: " + backedConfigs[i]); //$NON-NLS-1$
+					}
+				}
+				HistoryEntry[] history = (HistoryEntry[]) entries.toArray(new HistoryEntry[entries.size()]);
+				Arrays.sort(history);
+
+				BaseSiteLocalFactory factory = new BaseSiteLocalFactory();
+				URL bundleURL = getResourceBundleURL();
+				for (int i=0; i<history.length; i++) {
+					Date date = new Date(history[i].stamp);
 					InstallConfigurationModel config = factory.createInstallConfigurationModel();
-					config.setLocationURLString(backedConfigs[i].getAbsolutePath().replace('\\', '/'));
+					config.setLocationURLString(history[i].file.getAbsolutePath().replace('\\', '/'));
 					config.setLabel(date.toString());
 					config.setCreationDate(date);
-					config.resolve(backedConfigs[i].toURL(), getResourceBundleURL());
+					// a backed up configuration is never the current one
+					config.markLightlyInitialized(false);
+					config.resolve(history[i].file.toURL(), bundleURL);
 	
 					// add the config
 					addConfigurationModel(config);
@@ -268,6 +289,24 @@ public class SiteLocalModel extends ModelObject {
 		}
 	}
 
+	/*
+	 * A file of the history directory and the time stamp in its name
+	 */
+	private static class HistoryEntry implements Comparable {
+		long stamp;
+		File file;
+
+		HistoryEntry(long stamp, File file) {
+			this.stamp = stamp;
+			this.file = file;
+		}
+
+		public int compareTo(Object o) {
+			long other = ((HistoryEntry) o).stamp;
+			return (stamp < other) ? -1 : ((stamp == other) ? 0 : 1);
+		}
+	}
+
 	/**
 	 * return the appropriate resource bundle for this sitelocal
 	 */
@@ -11,8 +11,10 @@
 package org.eclipse.update.internal.operations;
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.osgi.util.NLS;
@@ -27,10 +29,21 @@ import org.eclipse.update.operations.IInstallFeatureOperation;
 
 
 /**
- * 
+ * Detects features that would end up configured with different versions.
+ * <p>
+ * An instance indexes the configured features of an install configuration
+ * once, by identifier. Install candidates are then added one by one and only
+ * the identifiers touched since the last call are checked again, so batch
+ * operations do not resolve the configured features for every job.
+ * </p>
  */
 public class DuplicateConflictsValidator  {
 
+	private Hashtable featureTable = new Hashtable(); /* key=feature id value=ArrayList of IdEntry */
+	private Hashtable conflicts = new Hashtable(); /* key=feature id value=ArrayList of IdEntry */
+	private Set changedIds = new HashSet();
+	private Set addedFeatures = new HashSet(); /* of "versioned id@site" whose whole tree was added */
+
 	public static class IdEntry {
 		IConfiguredSite csite;
 		IFeature feature;
@@ -72,20 +85,59 @@ public class DuplicateConflictsValidator  {
 		}
 	}
 
+	/**
+	 * Creates a validator for the configured features of the given configuration
+	 */
+	public DuplicateConflictsValidator(IInstallConfiguration config) {
+		computePresentState(config);
+	}
+
+	/**
+	 * Adds the feature of the operation, and its included features, as install
+	 * candidates for the target site of the operation
+	 */
+	public void add(IInstallFeatureOperation job) throws CoreException {
+		add(job.getFeature(), job.getTargetSite(), null);
+	}
+
+	/**
+	 * Adds the feature and its included features as install candidates
+	 * for the given site. Optional included features are only added
+	 * if they are part of <code>optionalFeatures</code>, all of them are
+	 * added if it is <code>null</code>.
+	 */
+	public void add(IFeature feature, IConfiguredSite targetSite, IFeatureReference[] optionalFeatures) throws CoreException {
+		computeNewFeature(feature, targetSite, optionalFeatures);
+	}
+
+	/**
+	 * Returns the conflicts as a list of lists of <code>IdEntry</code>,
+	 * or <code>null</code> if there is none
+	 */
+	public ArrayList getConflicts() {
+		for (Iterator iterator = changedIds.iterator(); iterator.hasNext();) {
+			String id = (String) iterator.next();
+			ArrayList conflict = checkForConflict((ArrayList) featureTable.get(id));
+			if (conflict != null)
+				conflicts.put(id, conflict);
+			else
+				conflicts.remove(id);
+		}
+		changedIds.clear();
+		if (conflicts.isEmpty())
+			return null;
+		return new ArrayList(conflicts.values());
+	}
+
 	public static ArrayList computeDuplicateConflicts(
 		IInstallFeatureOperation job,
 		IInstallConfiguration config,
 		IConfiguredSite targetSite,
 		IFeatureReference[] optionalFeatures) {
-		Hashtable featureTable = new Hashtable();
+		DuplicateConflictsValidator validator = new DuplicateConflictsValidator(config);
 		try {
-			computePresentState(featureTable, config);
-			computeNewFeature(
-				job.getFeature(),
-				targetSite,
-				featureTable,
-				optionalFeatures);
-			return computeConflicts(featureTable);
+			validator.add(job.getFeature(), targetSite, optionalFeatures);
+			return validator.getConflicts();
 		} catch (CoreException e) {
 			return null;
 		}
@@ -94,31 +146,19 @@ public class DuplicateConflictsValidator  {
 	public static ArrayList computeDuplicateConflicts(
 		IInstallFeatureOperation[] jobs,
 		IInstallConfiguration config) {
-		Hashtable featureTable = new Hashtable();
-		computePresentState(featureTable, config);
-		computeNewFeatures(jobs, featureTable);
-		return computeConflicts(featureTable);
-	}
-
-	private static ArrayList computeConflicts(Hashtable featureTable) {
-		ArrayList result = null;
-		for (Enumeration iterator = featureTable.elements();
-			iterator.hasMoreElements();
-			) {
-			ArrayList candidate = (ArrayList) iterator.nextElement();
-			if (candidate.size() == 1)
-				continue;
-			ArrayList conflict = checkForConflict(candidate);
-			if (conflict != null) {
-				if (result == null)
-					result = new ArrayList();
-				result.add(conflict);
+		DuplicateConflictsValidator validator = new DuplicateConflictsValidator(config);
+		for (int i = 0; i < jobs.length; i++) {
+			try {
+				validator.add(jobs[i]);
+			} catch (CoreException e) {
 			}
 		}
-		return result;
+		return validator.getConflicts();
 	}
 
 	private static ArrayList checkForConflict(ArrayList candidate) {
+		if (candidate == null || candidate.size() == 1)
+			return null;
 		IdEntry firstEntry = null;
 		for (int i = 0; i < candidate.size(); i++) {
 			IdEntry entry = (IdEntry) candidate.get(i);
@@ -130,16 +170,14 @@ public class DuplicateConflictsValidator  {
 		return null;
 	}
 
-	private static void computePresentState(
-		Hashtable table,
-		IInstallConfiguration config) {
+	private void computePresentState(IInstallConfiguration config) {
 		IConfiguredSite[] csites = config.getConfiguredSites();
 		for (int i = 0; i < csites.length; i++) {
 			IConfiguredSite csite = csites[i];
 			IFeatureReference[] refs = csite.getConfiguredFeatures();
 			for (int j = 0; j < refs.length; j++) {
 				try {
-					addEntry(refs[j].getFeature(null), csite, table);
+					addEntry(refs[j].getFeature(null), csite);
 				} catch (CoreException e) {
 					// don't let one bad feature stop the loop
 				}
@@ -147,27 +185,16 @@ public class DuplicateConflictsValidator  {
 		}
 	}
 
-	private static void computeNewFeatures(
-		IInstallFeatureOperation[] jobs,
-		Hashtable featureTable) {
-		for (int i = 0; i < jobs.length; i++) {
-			IInstallFeatureOperation job = jobs[i];
-			IConfiguredSite targetSite = job.getTargetSite();
-			IFeature newFeature = job.getFeature();
-			try {
-				computeNewFeature(newFeature, targetSite, featureTable, null);
-			} catch (CoreException e) {
-			}
-		}
-	}
-
-	private static void computeNewFeature(
+	private void computeNewFeature(
 		IFeature feature,
 		IConfiguredSite csite,
-		Hashtable table,
 		IFeatureReference[] optionalFeatures)
 		throws CoreException {
-		addEntry(feature, csite, table);
+		// a tree already added in full to this site has nothing more to add
+		String key = (csite == null) ? null : feature.getVersionedIdentifier() + "@" + csite.getSite().getURL(); //$NON-NLS-1$
+		if (key != null && addedFeatures.contains(key))
+			return;
+		addEntry(feature, csite);
 		IIncludedFeatureReference[] irefs =
 			feature.getIncludedFeatureReferences();
 		for (int i = 0; i < irefs.length; i++) {
@@ -189,16 +216,17 @@ public class DuplicateConflictsValidator  {
 				computeNewFeature(
 					iref.getFeature(null),
 					csite,
-					table,
 					optionalFeatures);
 		}
+		if (key != null && optionalFeatures == null)
+			addedFeatures.add(key);
 	}
 
-	private static void addEntry(
+	private void addEntry(
 		IFeature feature,
-		IConfiguredSite csite,
-		Hashtable featureTable) {
+		IConfiguredSite csite) {
 		String id = feature.getVersionedIdentifier().getIdentifier();
+		changedIds.add(id);
 		ArrayList entries = (ArrayList) featureTable.get(id);
 		if (entries == null) {
 			entries = new ArrayList();
@@ -39,6 +39,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.update.core.IIncludedFeatureReference;
 import org.eclipse.update.core.IncludedFeatureReference;
+import org.eclipse.update.core.VersionedIdentifier;
 import org.eclipse.update.core.model.DefaultSiteParser;
 import org.eclipse.update.core.model.FeatureModel;
 import org.eclipse.update.core.model.FeatureModelFactory;
@@ -48,6 +49,7 @@ import org.eclipse.update.core.model.PluginEntryModel;
 import org.eclipse.update.core.model.SiteModel;
 import org.eclipse.update.core.model.URLEntryModel;
 import org.eclipse.update.internal.core.ExtendedSiteURLFactory;
+import org.eclipse.update.internal.core.JarDelta;
 import org.eclipse.update.internal.core.Messages;
 import org.eclipse.update.internal.core.UpdateCore;
 import org.eclipse.update.internal.core.UpdateManagerUtils;
@@ -100,6 +102,10 @@ public class SiteOptimizerApplication implements IPlatformRunnable {
 
 	public final static String DIGEST_OUTPUT_DIR = "-digestOutputDir"; //$NON-NLS-1$
 
+	public final static String DELTA_BUILDER = "-deltaBuilder"; //$NON-NLS-1$
+
+	public final static String DELTA_BASE = "-deltaBase"; //$NON-NLS-1$
+
 	/*
 	 * private final static String DESCRIPTION = "DESCRIPTION"; private final
 	 * static String LICENCE = "LICENCE"; private final static String COPYRIGHT =
@@ -190,6 +196,86 @@ public class SiteOptimizerApplication implements IPlatformRunnable {
 		return true;
 	}
 
+	/*
+	 * Writes a jar delta to the output directory for each plugin jar of the
+	 * input directory that has a previous version in the base directory,
+	 * when the delta is smaller than the jar. The delta is taken against the
+	 * highest previous version.
+	 */
+	private boolean runDeltaBuilder(Map params) {
+		String input = (String) params.get(INPUT);
+		String base = (String) params.get(DELTA_BASE);
+		String output = (String) params.get(OUTPUT_DIR);
+		if (input == null || base == null || output == null) {
+			System.out.println("-deltaBuilder requires -deltaBase, -outputDir and an input directory"); //$NON-NLS-1$
+			return false;
+		}
+		File inputDir = new File(input);
+		File baseDir = new File(base);
+		File outputDir = new File(output);
+		if (!inputDir.isDirectory() || !baseDir.isDirectory()) {
+			System.out.println(NLS.bind(Messages.SiteOptimizer_inputFileNotFound, new String[] { inputDir.isDirectory() ? base : input }));
+			return false;
+		}
+		outputDir.mkdirs();
+
+		Map baseJars = new HashMap(); /* key=VersionedIdentifier value=File */
+		File[] baseFiles = baseDir.listFiles();
+		for (int i = 0; i < baseFiles.length; i++) {
+			VersionedIdentifier plugin = getPluginJarIdentifier(baseFiles[i]);
+			if (plugin != null)
+				baseJars.put(plugin, baseFiles[i]);
+		}
+
+		boolean verbose = params.containsKey(VERBOSE);
+		File[] newFiles = inputDir.listFiles();
+		for (int i = 0; i < newFiles.length; i++) {
+			VersionedIdentifier plugin = getPluginJarIdentifier(newFiles[i]);
+			if (plugin == null)
+				continue;
+			VersionedIdentifier oldPlugin = null;
+			for (Iterator iter = baseJars.keySet().iterator(); iter.hasNext();) {
+				VersionedIdentifier candidate = (VersionedIdentifier) iter.next();
+				if (candidate.getIdentifier().equals(plugin.getIdentifier())
+						&& plugin.getVersion().isGreaterThan(candidate.getVersion())
+						&& (oldPlugin == null || candidate.getVersion().isGreaterThan(oldPlugin.getVersion())))
+					oldPlugin = candidate;
+			}
+			if (oldPlugin == null)
+				continue;
+			File oldJar = (File) baseJars.get(oldPlugin);
+			File delta = new File(outputDir, newFiles[i].getName());
+			try {
+				JarDelta.create(oldPlugin, oldJar, newFiles[i], delta);
+			} catch (IOException e) {
+				System.out.println("Unable to create delta of " + newFiles[i] + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+				delta.delete();
+				continue;
+			}
+			if (delta.length() >= newFiles[i].length()) {
+				delta.delete();
+				continue;
+			}
+			if (verbose)
+				System.out.println("Delta of " + newFiles[i].getName() + " from " + oldJar.getName() + ": " + delta.length() + "/" + newFiles[i].length() + " bytes"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		}
+		return true;
+	}
+
+	/*
+	 * Returns the id and version of a plugin jar named <id>_<version>.jar
+	 */
+	private VersionedIdentifier getPluginJarIdentifier(File file) {
+		String name = file.getName();
+		if (!file.isFile() || !name.endsWith(".jar")) //$NON-NLS-1$
+			return null;
+		for (int i = name.indexOf('_'); i > 0; i = name.indexOf('_', i + 1)) {
+			if (i + 1 < name.length() && Character.isDigit(name.charAt(i + 1)))
+				return new VersionedIdentifier(name.substring(0, i), name.substring(i + 1, name.length() - 4));
+		}
+		return null;
+	}
+
 	private boolean runDigestBuilder(Map params) {
 
 		List featureList = getFeatureList(params);
@@ -514,6 +600,11 @@ public class SiteOptimizerApplication implements IPlatformRunnable {
 				if (!runDigestBuilder(params))
 					return EXIT_ERROR;
 			}
+
+			if (params.containsKey(DELTA_BUILDER)) {
+				if (!runDeltaBuilder(params))
+					return EXIT_ERROR;
+			}
 		}
 		return IPlatformRunnable.EXIT_OK;
 	}
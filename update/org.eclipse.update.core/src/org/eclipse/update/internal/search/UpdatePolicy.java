@@ -15,7 +15,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -86,24 +87,94 @@ public class UpdatePolicy {
 		public IUpdateSiteAdapter getSite() {
 			return site;
 		}
-		public boolean matches(String id) {
-			return id.startsWith(pattern);
-		}
 		public String getPattern() {
 			return pattern;
 		}
 	}
 
-	private ArrayList entries;
-	private ArrayList discoveryEntries;
+	/*
+	 * Prefix trie of the patterns. Finding the longest pattern that is a
+	 * prefix of an id takes one step per character of the id.
+	 */
+	private static class PatternTrie {
+		private char[] keys = new char[0]; /* sorted */
+		private PatternTrie[] children = new PatternTrie[0];
+		private UpdateMapEntry entry;
+
+		public void add(UpdateMapEntry newEntry) {
+			String pattern = newEntry.getPattern();
+			PatternTrie node = this;
+			for (int i = 0; i < pattern.length(); i++)
+				node = node.getOrCreateChild(pattern.charAt(i));
+			// the first of several identical patterns wins
+			if (node.entry == null)
+				node.entry = newEntry;
+		}
+
+		public UpdateMapEntry getLongestMatch(String id) {
+			UpdateMapEntry match = entry;
+			PatternTrie node = this;
+			for (int i = 0; i < id.length() && node != null; i++) {
+				node = node.getChild(id.charAt(i));
+				if (node != null && node.entry != null)
+					match = node.entry;
+			}
+			return match;
+		}
+
+		private PatternTrie getChild(char c) {
+			int index = indexOf(c);
+			return (index >= 0) ? children[index] : null;
+		}
+
+		private PatternTrie getOrCreateChild(char c) {
+			int index = indexOf(c);
+			if (index >= 0)
+				return children[index];
+			int insert = -(index + 1);
+			char[] newKeys = new char[keys.length + 1];
+			PatternTrie[] newChildren = new PatternTrie[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, insert);
+			System.arraycopy(children, 0, newChildren, 0, insert);
+			System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+			System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+			newKeys[insert] = c;
+			newChildren[insert] = new PatternTrie();
+			keys = newKeys;
+			children = newChildren;
+			return newChildren[insert];
+		}
+
+		private int indexOf(char c) {
+			int low = 0;
+			int high = keys.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (keys[middle] < c)
+					low = middle + 1;
+				else if (keys[middle] > c)
+					high = middle - 1;
+				else
+					return middle;
+			}
+			return -(low + 1);
+		}
+	}
+
+	// policies already loaded, by URL, reused while the policy file is not modified
+	private static final Map cache = new HashMap(); /* key=URL external form value=UpdatePolicy */
+
+	private PatternTrie entries;
+	private PatternTrie discoveryEntries;
 	private IUpdateSiteAdapter defaultSite;
 	private IUpdateSiteAdapter defaultDiscoverySite;
 	private boolean loaded = false;
 	private boolean fallbackAllowed = true;
+	private long lastModified = 0;
 
 	public UpdatePolicy() {
-		entries = new ArrayList();
-		discoveryEntries = new ArrayList();
+		entries = new PatternTrie();
+		discoveryEntries = new PatternTrie();
 	}
 
 	public void load(URL mapFile, IProgressMonitor monitor)
@@ -112,6 +183,11 @@ public class UpdatePolicy {
 		try {
 			IResponse response = ConnectionFactory.get(mapFile);
 			UpdateManagerUtils.checkConnectionResult(response, mapFile);
+			long timestamp = response.getLastModified();
+			if (loadCached(mapFile, timestamp)) {
+				response.close();
+				return;
+			}
 			policyStream = response.getInputStream(monitor);
 			// the stream can be null if the user cancels the connection
 			if (policyStream == null)
@@ -123,6 +199,13 @@ public class UpdatePolicy {
 
 			processUpdatePolicy(doc);
 			loaded = true;
+			lastModified = timestamp;
+			// without a timestamp there is no way to tell the policy changed
+			if (timestamp != 0) {
+				synchronized (cache) {
+					cache.put(mapFile.toExternalForm(), this);
+				}
+			}
 		} catch (IOException e) {
 			throw Utilities.newCoreException(
 				NLS.bind(Messages.SiteURLFactory_UnableToAccessSiteStream, (new String[] { mapFile == null ? "" : mapFile.toExternalForm() })), //$NON-NLS-1$
@@ -149,6 +232,29 @@ public class UpdatePolicy {
 		}
 	}
 
+	/*
+	 * Takes the mappings of the policy loaded from the same URL, if its
+	 * timestamp did not change. The mappings are not modified once loaded.
+	 */
+	private boolean loadCached(URL mapFile, long timestamp) {
+		if (timestamp == 0)
+			return false;
+		UpdatePolicy cached;
+		synchronized (cache) {
+			cached = (UpdatePolicy) cache.get(mapFile.toExternalForm());
+		}
+		if (cached == null || cached.lastModified != timestamp)
+			return false;
+		entries = cached.entries;
+		discoveryEntries = cached.discoveryEntries;
+		defaultSite = cached.defaultSite;
+		defaultDiscoverySite = cached.defaultDiscoverySite;
+		fallbackAllowed = cached.fallbackAllowed;
+		lastModified = timestamp;
+		loaded = true;
+		return true;
+	}
+
 	public boolean isLoaded() {
 		return loaded;
 	}
@@ -162,26 +268,9 @@ public class UpdatePolicy {
 	 * the URL for the longer pattern will be picked (i.e. org.eclipse.platform).
 	 */
 	public IUpdateSiteAdapter getMappedSite(String id) {
-		UpdateMapEntry lastEntry = null;
-		for (int i = 0; i < entries.size(); i++) {
-			UpdateMapEntry entry = (UpdateMapEntry) entries.get(i);
-			if (entry.matches(id)) {
-				if (lastEntry == null)
-					lastEntry = entry;
-				else {
-					// Choose the match with longer pattern.
-					// For example, if two matches are found:
-					// 'org.eclipse' and 'org.eclipse.platform',
-					// pick 'org.eclipse.platform'.
-					String pattern = entry.getPattern();
-					String lastPattern = lastEntry.getPattern();
-					if (pattern.length() > lastPattern.length())
-						lastEntry = entry;
-				}
-			}
-		}
-		if (lastEntry != null)
-			return lastEntry.getSite();
+		UpdateMapEntry entry = entries.getLongestMatch(id);
+		if (entry != null)
+			return entry.getSite();
 		else
 			return defaultSite;
 	}
@@ -195,26 +284,9 @@ public class UpdatePolicy {
 	 * the URL for the longer pattern will be picked (i.e. org.eclipse.platform).
 	 */
 	public IUpdateSiteAdapter getMappedDiscoverySite(String id) {
-		UpdateMapEntry lastEntry = null;
-		for (int i = 0; i < discoveryEntries.size(); i++) {
-			UpdateMapEntry entry = (UpdateMapEntry) discoveryEntries.get(i);
-			if (entry.matches(id)) {
-				if (lastEntry == null)
-					lastEntry = entry;
-				else {
-					// Choose the match with longer pattern.
-					// For example, if two matches are found:
-					// 'org.eclipse' and 'org.eclipse.platform',
-					// pick 'org.eclipse.platform'.
-					String pattern = entry.getPattern();
-					String lastPattern = lastEntry.getPattern();
-					if (pattern.length() > lastPattern.length())
-						lastEntry = entry;
-				}
-			}
-		}
-		if (lastEntry != null)
-			return lastEntry.getSite();
+		UpdateMapEntry entry = discoveryEntries.getLongestMatch(id);
+		if (entry != null)
+			return entry.getSite();
 		else
 			return defaultDiscoverySite;
 	}
@@ -224,10 +296,9 @@ public class UpdatePolicy {
 	}
 	
 	private void reset() {
-		if (!entries.isEmpty())
-			entries.clear();
-		if (!discoveryEntries.isEmpty())
-			discoveryEntries.clear();
+		// the tries may be shared with a cached policy, do not clear them
+		entries = new PatternTrie();
+		discoveryEntries = new PatternTrie();
 	}
 
 	private void processUpdatePolicy(Document document) throws CoreException {
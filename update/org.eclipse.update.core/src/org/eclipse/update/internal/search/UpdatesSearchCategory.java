@@ -11,6 +11,9 @@
 package org.eclipse.update.internal.search;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -168,6 +171,76 @@ public class UpdatesSearchCategory extends BaseSearchCategory {
 		}
 	}
 
+	/*
+	 * Resolves the features of site references on a few worker threads,
+	 * ahead of the query that consumes them in order. The resolved features
+	 * are kept by the site, so the query gets them from its cache.
+	 */
+	private static class FeatureResolver implements Runnable {
+		private static final int MAX_THREADS = 5;
+
+		private List pending; /* of ISiteFeatureReference */
+		private Set resolving = new HashSet(); /* of ISiteFeatureReference */
+		private IProgressMonitor monitor;
+
+		public FeatureResolver(List refs, IProgressMonitor monitor) {
+			this.pending = refs;
+			this.monitor = monitor;
+			int numberOfThreads = Math.min(refs.size(), MAX_THREADS);
+			// a single feature is resolved by the query itself
+			if (numberOfThreads < 2)
+				return;
+			ThreadGroup group = new ThreadGroup("FeatureResolver"); //$NON-NLS-1$
+			for (int i = 0; i < numberOfThreads; i++) {
+				Thread thread = new Thread(group, this);
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+
+		public void run() {
+			while (true) {
+				ISiteFeatureReference ref;
+				synchronized (this) {
+					if (pending.isEmpty() || monitor.isCanceled())
+						return;
+					ref = (ISiteFeatureReference) pending.remove(0);
+					resolving.add(ref);
+				}
+				try {
+					ref.getFeature(null);
+				} catch (CoreException e) {
+					// reported when the query asks for the feature
+				}
+				synchronized (this) {
+					resolving.remove(ref);
+					notifyAll();
+				}
+			}
+		}
+
+		/*
+		 * Waits until no worker is resolving the feature of the reference.
+		 * A reference not taken by a worker yet is left to the caller.
+		 */
+		public synchronized void waitFor(ISiteFeatureReference ref) {
+			pending.remove(ref);
+			while (resolving.contains(ref)) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+				}
+			}
+		}
+
+		/*
+		 * Drops the references not yet resolved
+		 */
+		public synchronized void cancel() {
+			pending.clear();
+		}
+	}
+
 	public class UpdateQuery implements IUpdateSearchQuery {
 		IFeature candidate;
 		IQueryUpdateSiteAdapter adapter;
@@ -233,7 +306,6 @@ public class UpdatesSearchCategory extends BaseSearchCategory {
 			IUpdateSearchFilter filter,
 			IUpdateSearchResultCollector collector,
 			IProgressMonitor monitor) {
-			ArrayList hits = new ArrayList();
 			boolean broken = isBroken();
 			boolean missingOptionalChildren = false;
 
@@ -244,11 +316,45 @@ public class UpdatesSearchCategory extends BaseSearchCategory {
 				missingOptionalChildren = isMissingOptionalChildren(candidate);
 			ISiteFeatureReference[] refs = site.getFeatureReferences();
 			monitor.beginTask("", refs.length + 1); //$NON-NLS-1$
+			FeatureResolver resolver = new FeatureResolver(getReferencesToResolve(refs), monitor);
+			try {
+				run(refs, broken, missingOptionalChildren, resolver, filter, collector, monitor);
+			} finally {
+				resolver.cancel();
+			}
+		}
+
+		/*
+		 * Returns the references whose feature the query will need: newer
+		 * versions of the candidate and patches
+		 */
+		private List getReferencesToResolve(ISiteFeatureReference[] refs) {
+			List result = new ArrayList();
+			for (int i = 0; i < refs.length; i++) {
+				try {
+					if (refs[i].isPatch() || isNewerVersion(candidate.getVersionedIdentifier(), refs[i].getVersionedIdentifier()))
+						result.add(refs[i]);
+				} catch (CoreException e) {
+				}
+			}
+			return result;
+		}
+
+		private void run(
+			ISiteFeatureReference[] refs,
+			boolean broken,
+			boolean missingOptionalChildren,
+			FeatureResolver resolver,
+			IUpdateSearchFilter filter,
+			IUpdateSearchResultCollector collector,
+			IProgressMonitor monitor) {
+			ArrayList hits = new ArrayList();
 			ArrayList updateJobs = new ArrayList();
 			for (int i = 0; i < refs.length; i++) {
 				ISiteFeatureReference ref = refs[i];
 				try {
 					if (isNewerVersion(candidate.getVersionedIdentifier(),ref.getVersionedIdentifier())) {
+						resolver.waitFor(ref);
 						Hit h = new Hit(candidate, ref);
 						hits.add(h);
 						IInstallFeatureOperation job = h.getJob();
@@ -265,6 +371,8 @@ public class UpdatesSearchCategory extends BaseSearchCategory {
 						}
 						else {
 							// check for patches
+							if (ref.isPatch())
+								resolver.waitFor(ref);
 							if (isPatch(candidate, ref)){
 								hits.add(new Hit(candidate, ref, true));
 								continue;
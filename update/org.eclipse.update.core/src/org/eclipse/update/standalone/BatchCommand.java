@@ -0,0 +1,160 @@
+/*******************************************************************************
+ *  Copyright (c) 2000, 2010 IBM Corporation and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.update.standalone;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.update.core.SiteManager;
+import org.eclipse.update.internal.core.LocalSite;
+import org.eclipse.update.internal.core.Messages;
+import org.eclipse.update.internal.core.UpdateCore;
+
+/**
+ * Command to run a script of standalone commands.
+ * <p>
+ * Each line of the script holds the arguments of one command, as given on the
+ * command line, for example <code>-command install -featureId f -version 1.0.0 -from http://...</code>.
+ * Empty lines and lines starting with <code>#</code> are ignored, arguments containing
+ * spaces are quoted with <code>"</code>.
+ * </p>
+ * <p>
+ * The commands run in order in the same session, sharing the local site and the
+ * sites already accessed, and the configuration is saved once when they are done.
+ * The script stops at the first command that fails.
+ * </p>
+ */
+class BatchCommand extends ScriptedCommand {
+
+	private String[][] commands;
+	private String[] lines;
+
+	/**
+	 * @param script the file containing the commands to run
+	 */
+	BatchCommand(String script) throws Exception {
+		if (script == null)
+			throw new Exception(Messages.Standalone_noScript);
+		File scriptFile = new File(script);
+		if (!scriptFile.isFile())
+			throw new Exception(Messages.Standalone_noScript + script);
+
+		ArrayList parsedCommands = new ArrayList();
+		ArrayList parsedLines = new ArrayList();
+		BufferedReader in = null;
+		try {
+			in = new BufferedReader(new InputStreamReader(new FileInputStream(scriptFile), "UTF-8")); //$NON-NLS-1$
+			String line;
+			while ((line = in.readLine()) != null) {
+				line = line.trim();
+				if (line.length() == 0 || line.charAt(0) == '#')
+					continue;
+				parsedCommands.add(tokenize(line));
+				parsedLines.add(line);
+			}
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+		commands = (String[][]) parsedCommands.toArray(new String[parsedCommands.size()][]);
+		lines = (String[]) parsedLines.toArray(new String[parsedLines.size()]);
+	}
+
+	/**
+	 */
+	public boolean run(IProgressMonitor monitor) {
+		LocalSite localSite = null;
+		boolean result = true;
+		try {
+			monitor.beginTask("", commands.length); //$NON-NLS-1$
+			localSite = (LocalSite) SiteManager.getLocalSite();
+			localSite.setSaveDeferred(true);
+
+			for (int i = 0; i < commands.length && result; i++) {
+				long start = System.currentTimeMillis();
+				// commands are created when they run, to see the changes of the previous ones
+				ScriptedCommand cmd = new CmdLineArgs(commands[i]).getCommand();
+				if (cmd == null || cmd instanceof BatchCommand) {
+					if (cmd != null) {
+						StandaloneUpdateApplication.exceptionLogged();
+						UpdateCore.log(Messages.Standalone_invalidCmd + lines[i], null);
+					}
+					result = false;
+				} else {
+					result = cmd.run(new SubProgressMonitor(monitor, 1));
+				}
+				long time = System.currentTimeMillis() - start;
+				if (result)
+					System.out.println(NLS.bind(Messages.Standalone_batchCmd, lines[i], Long.toString(time)));
+				else
+					System.out.println(NLS.bind(Messages.Standalone_batchCmdFailed, lines[i], Long.toString(time)));
+			}
+		} catch (CoreException e) {
+			StandaloneUpdateApplication.exceptionLogged();
+			UpdateCore.log(e);
+			result = false;
+		} finally {
+			// keep the changes of the commands that completed
+			if (localSite != null) {
+				try {
+					localSite.saveDeferredChanges();
+				} catch (CoreException e) {
+					StandaloneUpdateApplication.exceptionLogged();
+					UpdateCore.log(e);
+					result = false;
+				}
+			}
+			monitor.done();
+		}
+		return result;
+	}
+
+	/*
+	 * Splits the line on white space, quoted arguments may contain spaces
+	 */
+	private static String[] tokenize(String line) {
+		ArrayList tokens = new ArrayList();
+		StringBuffer token = new StringBuffer();
+		boolean quoted = false;
+		boolean inToken = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+				inToken = true;
+			} else if (!quoted && Character.isWhitespace(c)) {
+				if (inToken) {
+					tokens.add(token.toString());
+					token.setLength(0);
+					inToken = false;
+				}
+			} else {
+				token.append(c);
+				inToken = true;
+			}
+		}
+		if (inToken)
+			tokens.add(token.toString());
+		return (String[]) tokens.toArray(new String[tokens.size()]);
+	}
+}
@@ -78,6 +78,7 @@ public class CmdLineArgs {
 			|| param.equals("-featureId") //$NON-NLS-1$
 			|| param.equals("-verifyOnly") //$NON-NLS-1$
 			|| param.equals("-mirrorURL") //$NON-NLS-1$
+			|| param.equals("-script") //$NON-NLS-1$
 		    || param.equals("-ignoreMissingPlugins"); //$NON-NLS-1$
 	}
 
@@ -94,7 +95,8 @@ public class CmdLineArgs {
 			|| cmd.equals("uninstall") //$NON-NLS-1$
 			|| cmd.equals("listFeatures") //$NON-NLS-1$
 			|| cmd.equals("addSite") //$NON-NLS-1$
-			|| cmd.equals("removeSite"); //$NON-NLS-1$
+			|| cmd.equals("removeSite") //$NON-NLS-1$
+			|| cmd.equals("batch"); //$NON-NLS-1$
 	}
 
 	public ScriptedCommand getCommand() {
@@ -148,6 +150,8 @@ public class CmdLineArgs {
 				return new AddSiteCommand((String) options.get("-from")); //$NON-NLS-1$
 			else if (cmd.equals("removeSite")) //$NON-NLS-1$
 				return new RemoveSiteCommand((String) options.get("-to")); //$NON-NLS-1$
+			else if (cmd.equals("batch")) //$NON-NLS-1$
+				return new BatchCommand((String) options.get("-script")); //$NON-NLS-1$
 			else
 				return null;
 		} catch (Exception e) {